@@ -0,0 +1,59 @@
+/*
+ * Copyright 2024 TerminalMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dev.terminalmc.moretraps.benchmark;
+
+import dev.terminalmc.moretraps.config.Config;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Config file save and load, including compilation of the saved config. The
+ * save is flushed on the benchmark thread rather than left to the background
+ * writer.
+ *
+ * <p>Uses the {@code config} directory under the benchmark working
+ * directory.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ConfigRoundTripBenchmark {
+    @Setup
+    public void setup() {
+        Registries.bootstrap();
+        Config.getAndSave();
+    }
+
+    @Benchmark
+    public Config saveAndLoad() {
+        Config.save();
+        Config.flush();
+        return Config.load();
+    }
+
+    @Benchmark
+    public Config load() {
+        return Config.load();
+    }
+}
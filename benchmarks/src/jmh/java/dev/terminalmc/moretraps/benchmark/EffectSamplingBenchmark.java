@@ -0,0 +1,84 @@
+/*
+ * Copyright 2024 TerminalMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dev.terminalmc.moretraps.benchmark;
+
+import dev.terminalmc.moretraps.trap.EffectPool;
+import dev.terminalmc.moretraps.trap.EffectSampler;
+import net.minecraft.core.registries.BuiltInRegistries;
+import net.minecraft.util.RandomSource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Effect selection as performed when applying trap effects, over the
+ * beneficial effect pool and a weighted pool of all effects.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class EffectSamplingBenchmark {
+    @Param({"1", "4", "8"})
+    public int effectNum;
+
+    @Param({"false", "true"})
+    public boolean weighted;
+
+    private EffectPool pool;
+    private final EffectSampler sampler = new EffectSampler();
+    private RandomSource random;
+
+    @Setup
+    public void setup() {
+        Registries.bootstrap();
+        EffectPool beneficial = EffectPool.beneficial();
+        if (weighted) {
+            List<String> entries = new ArrayList<>();
+            int weight = 1;
+            for (var id : BuiltInRegistries.MOB_EFFECT.keySet()) {
+                entries.add(id + "=" + weight);
+                weight = weight % 5 + 1;
+            }
+            pool = EffectPool.parse(entries, beneficial);
+        } else {
+            pool = beneficial;
+        }
+        random = RandomSource.create(0);
+    }
+
+    /**
+     * The selection used by {@code TrapTrigger.applyEffects}, with the
+     * effects passed to a blackhole instead of applied.
+     */
+    @Benchmark
+    public int selectEffects(Blackhole bh) {
+        return sampler.select(pool, effectNum, random, bh, (target, index, amplifier) -> {
+            target.consume(index);
+            target.consume(amplifier);
+        });
+    }
+}
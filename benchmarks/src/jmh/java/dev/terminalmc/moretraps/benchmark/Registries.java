@@ -0,0 +1,53 @@
+/*
+ * Copyright 2024 TerminalMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dev.terminalmc.moretraps.benchmark;
+
+import dev.terminalmc.moretraps.MoreTraps;
+import net.minecraft.SharedConstants;
+import net.minecraft.core.registries.BuiltInRegistries;
+import net.minecraft.server.Bootstrap;
+import net.minecraft.world.entity.EntityType;
+
+import java.util.List;
+
+/**
+ * Offline access to the vanilla registries, without a running game.
+ */
+final class Registries {
+    private static boolean bootstrapped = false;
+
+    private Registries() {
+    }
+
+    static synchronized void bootstrap() {
+        if (bootstrapped) return;
+        SharedConstants.tryDetectVersion();
+        Bootstrap.bootStrap();
+        bootstrapped = true;
+    }
+
+    /**
+     * @return the IDs of all mob entity types, in registry order.
+     */
+    static List<String> mobIds() {
+        bootstrap();
+        return BuiltInRegistries.ENTITY_TYPE.stream()
+                .filter(MoreTraps::isMob)
+                .map(type -> EntityType.getKey(type).toString())
+                .toList();
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright 2024 TerminalMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dev.terminalmc.moretraps.benchmark;
+
+import dev.terminalmc.moretraps.MoreTraps;
+import dev.terminalmc.moretraps.config.CompiledConfig;
+import dev.terminalmc.moretraps.config.CompiledTrap;
+import dev.terminalmc.moretraps.config.Config;
+import dev.terminalmc.moretraps.config.Trap;
+import dev.terminalmc.moretraps.config.TrapGroup;
+import dev.terminalmc.moretraps.level.ChunkChurn;
+import dev.terminalmc.moretraps.level.TrapTable;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.util.RandomSource;
+import net.minecraft.world.entity.EntityType;
+import net.minecraft.world.entity.MobSpawnType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Trap lookup by entity type, and the entity-free steps of the spawn tag
+ * decision ({@link MoreTraps#passesTagFilters} and
+ * {@link MoreTraps#selectTrap}), for trap and non-trap entity types.
+ *
+ * <p>The remaining steps of {@code MoreTraps.chanceAddTag} read mixin state
+ * and the biome from a live entity and level, so are measured in-game by the
+ * stats command instead.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class TrapLookupBenchmark {
+    @Param({"2", "50", "500"})
+    public int traps;
+
+    private CompiledConfig config;
+    private TrapTable table;
+    private ChunkChurn churn;
+    private EntityType<?> trapType;
+    private EntityType<?> otherType;
+    private RandomSource random;
+    private long gameTime;
+
+    @Setup
+    public void setup() {
+        Registries.bootstrap();
+        List<String> mobs = Registries.mobIds();
+        Config source = new Config();
+        source.options.traps = new ArrayList<>();
+        for (int i = 0; i < traps; i++) {
+            String id = mobs.get(i % mobs.size());
+            source.options.traps.add(new Trap(id, id, "", false, false, 0.05F, 3, 0));
+        }
+        CompiledConfig.publish(source);
+        config = CompiledConfig.get();
+        table = new TrapTable(config, ResourceLocation.withDefaultNamespace("overworld"), null);
+        churn = new ChunkChurn();
+        // Last configured trap, the worst case for a linear scan
+        trapType = config.traps.getLast().source.types().getFirst();
+        otherType = EntityType.ITEM;
+        random = RandomSource.create(0);
+    }
+
+    @Benchmark
+    public TrapGroup lookupTrapType() {
+        return config.getByType(trapType);
+    }
+
+    @Benchmark
+    public TrapGroup lookupOtherType() {
+        return config.getByType(otherType);
+    }
+
+    @Benchmark
+    public boolean filterTrapType() {
+        return filter(trapType);
+    }
+
+    @Benchmark
+    public boolean filterOtherType() {
+        return filter(otherType);
+    }
+
+    @Benchmark
+    public CompiledTrap selectTrapType() {
+        return MoreTraps.selectTrap(table, trapType, 0, MobSpawnType.NATURAL, random);
+    }
+
+    @Benchmark
+    public CompiledTrap selectOtherType() {
+        return MoreTraps.selectTrap(table, otherType, 0, MobSpawnType.NATURAL, random);
+    }
+
+    /**
+     * One spawn per tick spread over 256 chunks, so the churn counters
+     * rotate windows as they would in-game.
+     */
+    private boolean filter(EntityType<?> type) {
+        long time = gameTime++;
+        return MoreTraps.passesTagFilters(config, churn, type, MobSpawnType.NATURAL,
+                time & 0xFF, time);
+    }
+}
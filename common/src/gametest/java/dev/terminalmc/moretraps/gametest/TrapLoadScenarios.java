@@ -0,0 +1,225 @@
+/*
+ * Copyright 2024 TerminalMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dev.terminalmc.moretraps.gametest;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonObject;
+import dev.terminalmc.moretraps.MoreTraps;
+import dev.terminalmc.moretraps.config.CompiledConfig;
+import dev.terminalmc.moretraps.config.Config;
+import dev.terminalmc.moretraps.config.Trap;
+import dev.terminalmc.moretraps.entity.TrapMob;
+import dev.terminalmc.moretraps.entity.TrapState;
+import dev.terminalmc.moretraps.stats.Histogram;
+import dev.terminalmc.moretraps.stats.TrapStats;
+import net.minecraft.gametest.framework.GameTestHelper;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.server.level.ServerPlayer;
+import net.minecraft.world.entity.EntityType;
+import net.minecraft.world.entity.Mob;
+import net.minecraft.world.phys.Vec3;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Server-side load scenarios for the trap engine, registered as GameTests by
+ * the loader entrypoints.
+ *
+ * <p>Each scenario fills the test area with armed trap sources, moves mock
+ * players along a scripted path, and records the server tick time and the
+ * time spent ticking armed traps and draining spawn queues, from
+ * {@link TrapStats}. Results are written as JSON
+ * to the path in the {@code moretraps.gametest.report} system property, or
+ * {@code moretraps-gametest.json} in the run directory.</p>
+ */
+public class TrapLoadScenarios {
+    /**
+     * Empty 48x4x48 structure, in the gametest source set's data.
+     */
+    public static final String TEMPLATE = "empty";
+    public static final int TIMEOUT_TICKS = 400;
+
+    private static final int MOBS = 2000;
+    private static final int PLAYERS = 8;
+    private static final int WARMUP_TICKS = 20;
+    private static final int MEASURE_TICKS = 200;
+    private static final Path REPORT_PATH = Path.of(System.getProperty(
+            MoreTraps.MOD_ID + ".gametest.report", MoreTraps.MOD_ID + "-gametest.json"));
+    private static final Gson GSON = new GsonBuilder().setPrettyPrinting().create();
+    private static final Map<String, JsonObject> results = new LinkedHashMap<>();
+
+    @FunctionalInterface
+    private interface PlayerPath {
+        /**
+         * @return the position of the player relative to the test origin at
+         * the specified tick.
+         */
+        Vec3 at(int player, int tick);
+    }
+
+    /**
+     * Armed traps with every player far out of range.
+     */
+    public static void idle(GameTestHelper helper) {
+        run(helper, "idle", 10F, (player, tick) -> new Vec3(-200, 1, -200 + player * 4), 0);
+    }
+
+    /**
+     * Players walking across the armed field, triggering traps as they go.
+     */
+    public static void crowdApproach(GameTestHelper helper) {
+        run(helper, "crowd_approach", 10F,
+                (player, tick) -> new Vec3(-60 + tick * 0.6, 1, 2 + player * 6), -1);
+    }
+
+    /**
+     * Players appearing in the middle of the field, with an activation range
+     * covering every armed trap at once.
+     */
+    public static void massTrigger(GameTestHelper helper) {
+        int appear = WARMUP_TICKS + MEASURE_TICKS / 4;
+        run(helper, "mass_trigger", 64F, (player, tick) -> tick < appear
+                ? new Vec3(-200, 1, -200 + player * 4)
+                : new Vec3(22 + player % 2, 1, 22 + player / 2), MOBS);
+    }
+
+    /**
+     * @param expectedTriggers the exact number of triggers expected, or -1
+     *                         for any number.
+     */
+    private static void run(GameTestHelper helper, String name, float activationRange,
+                            PlayerPath path, int expectedTriggers) {
+        ServerLevel level = helper.getLevel();
+        MinecraftServer server = level.getServer();
+        CompiledConfig.publish(createConfig(activationRange));
+
+        List<Mob> sources = spawnSources(helper);
+        List<ServerPlayer> players = new ArrayList<>();
+        for (int i = 0; i < PLAYERS; i++) {
+            ServerPlayer player = helper.makeMockServerPlayerInLevel();
+            player.moveTo(helper.absoluteVec(path.at(i, 0)));
+            players.add(player);
+        }
+
+        Histogram serverTickNanos = new Histogram();
+        int[] tick = {0};
+        helper.onEachTick(() -> {
+            int t = ++tick[0];
+            for (int i = 0; i < players.size(); i++) {
+                players.get(i).moveTo(helper.absoluteVec(path.at(i, t)));
+            }
+            if (t == WARMUP_TICKS) {
+                TrapStats.reset();
+            } else if (t > WARMUP_TICKS) {
+                // Slot of the previous, completed tick
+                serverTickNanos.record(server.getTickTimesNanos()[(server.getTickCount() - 1) % 100]);
+            }
+        });
+
+        helper.runAfterDelay(WARMUP_TICKS + MEASURE_TICKS, () -> {
+            long triggers = TrapStats.triggers.sum();
+            JsonObject result = new JsonObject();
+            result.addProperty("mobs", sources.size());
+            result.addProperty("players", players.size());
+            result.addProperty("ticks", MEASURE_TICKS);
+            result.addProperty("triggers", triggers);
+            result.addProperty("spawned", TrapStats.spawned.sum());
+            result.addProperty("serverTickMeanMs", serverTickNanos.mean() / 1E6);
+            result.addProperty("serverTickP99Ms", serverTickNanos.percentile(0.99) / 1E6);
+            result.addProperty("serverTickMaxMs", serverTickNanos.max() / 1E6);
+            addLatency(result, "armedTick", TrapStats.armedTickNanos);
+            addLatency(result, "spawnDrain", TrapStats.spawnDrainNanos);
+            writeResult(name, result);
+
+            for (ServerPlayer player : players) {
+                server.getPlayerList().remove(player);
+            }
+            for (Mob mob : level.getEntitiesOfClass(Mob.class, helper.getBounds().inflate(16))) {
+                mob.discard();
+            }
+            CompiledConfig.publish(Config.get());
+
+            if (expectedTriggers != -1) {
+                helper.assertTrue(triggers == expectedTriggers,
+                        "Expected " + expectedTriggers + " triggers, got " + triggers);
+            }
+            helper.succeed();
+        });
+    }
+
+    private static void addLatency(JsonObject result, String name, Histogram histogram) {
+        result.addProperty(name + "MeanUs", histogram.mean() / 1E3);
+        result.addProperty(name + "P99Us", histogram.percentile(0.99) / 1E3);
+        result.addProperty(name + "MaxUs", histogram.max() / 1E3);
+    }
+
+    private static Config createConfig(float activationRange) {
+        Config config = new Config();
+        Config.Options options = config.options;
+        options.activationRange = activationRange;
+        options.allowInstant = true;
+        options.chunkSpawnCap = 0;
+        options.levelSpawnCap = 0;
+        options.idleDespawnTime = 0;
+        options.traps = List.of(new Trap("minecraft:pig", "minecraft:zombie", "",
+                false, false, 1F, 1, 0));
+        return config;
+    }
+
+    /**
+     * Spawns a grid of armed pigs, one per block across the test area.
+     */
+    private static List<Mob> spawnSources(GameTestHelper helper) {
+        ServerLevel level = helper.getLevel();
+        int side = (int)Math.ceil(Math.sqrt(MOBS));
+        List<Mob> sources = new ArrayList<>(MOBS);
+        for (int i = 0; i < MOBS; i++) {
+            Mob mob = EntityType.PIG.create(level);
+            if (mob == null) continue;
+            mob.moveTo(helper.absoluteVec(new Vec3(i % side + 0.5, 1, i / side + 0.5)));
+            mob.setNoAi(true);
+            mob.setNoGravity(true);
+            TrapMob trapMob = TrapMob.of(mob);
+            trapMob.moretraps$setTrapState(TrapState.SOURCE);
+            trapMob.moretraps$setTrapIndex(0);
+            level.addFreshEntity(mob);
+            sources.add(mob);
+        }
+        return sources;
+    }
+
+    private static synchronized void writeResult(String name, JsonObject result) {
+        results.put(name, result);
+        JsonObject report = new JsonObject();
+        results.forEach(report::add);
+        try {
+            Path parent = REPORT_PATH.toAbsolutePath().getParent();
+            if (parent != null) Files.createDirectories(parent);
+            Files.writeString(REPORT_PATH, GSON.toJson(report));
+        } catch (IOException e) {
+            MoreTraps.LOG.error("Unable to write GameTest report.", e);
+        }
+    }
+}
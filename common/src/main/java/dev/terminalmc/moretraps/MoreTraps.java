@@ -16,18 +16,34 @@
 
 package dev.terminalmc.moretraps;
 
+import dev.terminalmc.moretraps.config.CompiledConfig;
+import dev.terminalmc.moretraps.config.CompiledTrap;
 import dev.terminalmc.moretraps.config.Config;
-import dev.terminalmc.moretraps.config.Trap;
+import dev.terminalmc.moretraps.config.ConfigWatcher;
+import dev.terminalmc.moretraps.config.TrapGroup;
+import dev.terminalmc.moretraps.entity.TrapMob;
+import dev.terminalmc.moretraps.entity.TrapState;
+import dev.terminalmc.moretraps.level.ChunkChurn;
+import dev.terminalmc.moretraps.level.LevelTrapData;
+import dev.terminalmc.moretraps.level.PlayerGrid;
+import dev.terminalmc.moretraps.level.TrapTable;
+import dev.terminalmc.moretraps.stats.TrapStats;
 import dev.terminalmc.moretraps.util.ModLogger;
 import net.minecraft.ChatFormatting;
 import net.minecraft.core.registries.BuiltInRegistries;
 import net.minecraft.network.chat.Component;
 import net.minecraft.resources.ResourceLocation;
 import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.server.level.WorldGenRegion;
+import net.minecraft.util.RandomSource;
 import net.minecraft.world.entity.Entity;
 import net.minecraft.world.entity.EntityType;
 import net.minecraft.world.entity.Mob;
 import net.minecraft.world.entity.MobCategory;
+import net.minecraft.world.entity.MobSpawnType;
+import net.minecraft.world.level.ChunkPos;
+import net.minecraft.world.level.LevelReader;
 import org.jetbrains.annotations.Nullable;
 
 public class MoreTraps {
@@ -39,60 +55,189 @@ public class MoreTraps {
             .append(Component.literal(MOD_NAME).withStyle(ChatFormatting.GOLD))
             .append(Component.literal("] ").withStyle(ChatFormatting.DARK_GRAY))
             .withStyle(ChatFormatting.GRAY);
-    public static final String TRAP_SOURCE_TAG = MOD_ID + ":trap_source";
-    public static final String TRAP_SPAWN_TAG = MOD_ID + ":trap_spawn";
+    /**
+     * Entity tags used to store trap state before {@link TrapMob}, migrated on
+     * load.
+     */
+    public static final String LEGACY_TRAP_SOURCE_TAG = MOD_ID + ":trap_source";
+    public static final String LEGACY_TRAP_SPAWN_TAG = MOD_ID + ":trap_spawn";
 
     public static void init() {
         Config.getAndSave();
+        ConfigWatcher.start();
     }
 
     public static void onEndTick(MinecraftServer mc) {
+        ConfigWatcher.applyPending();
+        CompiledConfig config = CompiledConfig.get();
+        for (ServerLevel level : mc.getAllLevels()) {
+            LevelTrapData.of(level).tick(level, config);
+        }
+    }
+
+    public static void onServerStopping(MinecraftServer server) {
+        Config.flush();
+    }
 
+    /**
+     * Recompiles the config on the server thread after datapack tags are
+     * (re)loaded, so that tag selectors resolve against the new tags.
+     */
+    public static void onTagsLoaded() {
+        CompiledConfig.publish(Config.get());
     }
 
     public static void onConfigSaved(Config config) {
         // If you are maintaining caches based on config values, update them here.
-        for (Trap trap : config.options.traps) {
-            trap.spawnType = null;
-            trap.passengerType = null;
-
-            @Nullable ResourceLocation id = ResourceLocation.tryParse(trap.sourceId);
-            if (id != null && BuiltInRegistries.ENTITY_TYPE.containsKey(id)) {
-                EntityType<?> entityType = BuiltInRegistries.ENTITY_TYPE.get(id);
-                if (isMob(entityType)) trap.sourceType = (EntityType<Mob>)entityType;
-            }
-
-            id = ResourceLocation.tryParse(trap.spawnId);
-            if (id != null && BuiltInRegistries.ENTITY_TYPE.containsKey(id)) {
-                EntityType<?> entityType = BuiltInRegistries.ENTITY_TYPE.get(id);
-                if (isMob(entityType)) trap.spawnType = (EntityType<Mob>)entityType;
-            }
-
-            id = ResourceLocation.tryParse(trap.passengerId);
-            if (id != null && BuiltInRegistries.ENTITY_TYPE.containsKey(id)) {
-                EntityType<?> entityType = BuiltInRegistries.ENTITY_TYPE.get(id);
-                if (isMob(entityType)) trap.passengerType = (EntityType<Mob>)entityType;
-            }
-        }
+        ConfigWatcher.discardPending();
+        CompiledConfig.publish(config);
     }
 
     public static void chanceAddTag(Entity entity) {
-        if (!Config.get().options.enabled) return;
         if (!(entity instanceof Mob mob)) return;
-        if (mob.getTags().contains(MoreTraps.TRAP_SPAWN_TAG)) return;
-        if (mob.getTags().contains(MoreTraps.TRAP_SOURCE_TAG)) return;
-
-        if (!Config.get().options.allowInstant && entity.level().hasNearbyAlivePlayer(
-                entity.getX(), entity.getY(), entity.getZ(), Config.get().options.activationRange + 1)) return;
-
-        @Nullable Trap trap = Trap.getByType(entity.getType());
-        if (trap != null && entity.getRandom().nextFloat() < trap.chance) {
-            mob.addTag(MoreTraps.TRAP_SOURCE_TAG);
-            if (Config.get().options.debugMode) {
-                MoreTraps.LOG.info("Added TRAP_SOURCE_TAG to {} at {}",
-                        mob.getName().getString(), mob.getOnPos());
-            }
+        if (mob.level() instanceof ServerLevel level) {
+            LevelTrapData data = LevelTrapData.of(level);
+            tryAddTag(mob, level, level, data.players(), data.chunkChurn());
+        }
+    }
+
+    /**
+     * Variant of {@link #chanceAddTag} for chunk generation, which may run on
+     * worker threads. Reads only the config snapshot, the player grid
+     * published by the server thread, and the entity itself, so never
+     * touches live level state.
+     */
+    public static void chanceAddTagWorldGen(WorldGenRegion region, Entity entity) {
+        if (!(entity instanceof Mob mob)) return;
+        ServerLevel level = region.getLevel();
+        tryAddTag(mob, level, region, LevelTrapData.of(level).players(), null);
+    }
+
+    /**
+     * Only mobs that pass {@link #passesTagFilters} are counted and timed,
+     * so the stats cost nothing for rejected entities.
+     * @param reader the level, or the world generation region containing the
+     *               entity, used to look up its biome.
+     * @param churn the level's spawn rate counters, or {@code null} during
+     *              world generation.
+     */
+    private static void tryAddTag(Mob mob, ServerLevel level, LevelReader reader,
+                                  PlayerGrid players, @Nullable ChunkChurn churn) {
+        CompiledConfig config = CompiledConfig.get();
+        if (!config.enabled) return;
+        TrapMob trapMob = TrapMob.of(mob);
+        // Also excludes trap spawns from the churn counts
+        if (trapMob.moretraps$getTrapState() != TrapState.NONE) return;
+        @Nullable MobSpawnType spawnType = trapMob.moretraps$getSpawnType();
+        if (!passesTagFilters(config, churn, mob.getType(), spawnType,
+                ChunkPos.asLong(mob.blockPosition()), level.getGameTime())) return;
+        TrapStats.tagChecks.increment();
+        long start = System.nanoTime();
+        tagCandidate(config, mob, trapMob, spawnType, level, reader, players);
+        TrapStats.tagNanos.record(System.nanoTime() - start);
+    }
+
+    private static void tagCandidate(CompiledConfig config, Mob mob, TrapMob trapMob,
+                                     @Nullable MobSpawnType spawnType, ServerLevel level,
+                                     LevelReader reader, PlayerGrid players) {
+        TrapTable table = LevelTrapData.of(level).trapTable(config, level);
+        int biomeId = table.usesBiomes() ? table.biomeId(reader, mob.blockPosition()) : 0;
+        // Picked once and persisted, so later lookups and reloads can't
+        // change which trap the mob fires
+        @Nullable CompiledTrap trap = selectTrap(table, mob.getType(), biomeId,
+                spawnType, mob.getRandom());
+        if (trap == null) return;
+
+        if (!config.allowInstant && players.hasPlayerWithin(
+                mob.getX(), mob.getY(), mob.getZ(), config.activationRange + 1)) return;
+
+        if (config.lazyRoll) {
+            trapMob.moretraps$setTrapState(TrapState.PENDING);
+            trapMob.moretraps$setTrap(trap);
+        } else {
+            roll(config, trapMob, mob, trap);
+        }
+    }
+
+    /**
+     * Cheap rejection filters of {@link #chanceAddTag}, in order of cost.
+     * Records the spawn in {@code churn} if it gets that far.
+     * @param churn the level's spawn rate counters, or {@code null} during
+     *              world generation.
+     * @param chunk the packed position of the chunk the mob spawned in.
+     * @return {@code true} if the mob may still become a trap source.
+     */
+    public static boolean passesTagFilters(CompiledConfig config, @Nullable ChunkChurn churn,
+                                           EntityType<?> type, @Nullable MobSpawnType spawnType,
+                                           long chunk, long gameTime) {
+        // Field read and bit test, rejects spawner and farm output first
+        if (!config.allowsSpawnType(spawnType)) return false;
+        if (churn != null && churn.recordSpawn(config, chunk, gameTime)) {
+            TrapStats.churnSuppressed.increment();
+            return false;
+        }
+        // Single table load, rejects non-source types before any other work
+        return config.getByType(type) != null;
+    }
+
+    /**
+     * Picks the trap for a mob that passed {@link #passesTagFilters}.
+     * @param biomeId the {@link TrapTable#biomeId} of the mob's position,
+     *                ignored if the table doesn't use biomes.
+     * @return the picked trap, or {@code null} if none apply.
+     */
+    public static @Nullable CompiledTrap selectTrap(TrapTable table, EntityType<?> type, int biomeId,
+                                                    @Nullable MobSpawnType spawnType,
+                                                    RandomSource random) {
+        @Nullable TrapGroup group = table.get(type, biomeId);
+        if (group == null) return null;
+        group = group.forSpawnType(spawnType);
+        if (group == null) return null;
+        return group.pick(random);
+    }
+
+    /**
+     * Performs the deferred chance roll for a {@link TrapState#PENDING} mob.
+     * @return {@code true} if the mob became a trap source.
+     */
+    public static boolean rollPending(CompiledConfig config, Mob mob) {
+        TrapMob trapMob = TrapMob.of(mob);
+        if (trapMob.moretraps$getTrapState() != TrapState.PENDING) {
+            return trapMob.moretraps$getTrapState() == TrapState.SOURCE;
+        }
+        trapMob.moretraps$setTrapState(TrapState.NONE);
+        @Nullable CompiledTrap trap = config.getForSource(mob);
+        if (trap == null) return false;
+        return roll(config, trapMob, mob, trap);
+    }
+
+    private static boolean roll(CompiledConfig config, TrapMob trapMob, Mob mob, CompiledTrap trap) {
+        TrapStats.tagRolls.increment();
+        if (mob.getRandom().nextFloat() >= trap.chance) return false;
+        TrapStats.tagged.increment();
+        trapMob.moretraps$setTrapState(TrapState.SOURCE);
+        trapMob.moretraps$setTrap(trap);
+        if (config.debugMode) {
+            // Not getOnPos, which reads block states and may run on a
+            // world generation thread
+            MoreTraps.LOG.info("Marked {} as trap source at {}",
+                    mob.getName().getString(), mob.blockPosition());
+        }
+        return true;
+    }
+
+    /**
+     * @return the mob entity type with the specified ID, or {@code null} if
+     * the ID is invalid or does not refer to a mob.
+     */
+    @SuppressWarnings("unchecked")
+    public static @Nullable EntityType<Mob> resolveMob(String idString) {
+        @Nullable ResourceLocation id = ResourceLocation.tryParse(idString);
+        if (id != null && BuiltInRegistries.ENTITY_TYPE.containsKey(id)) {
+            EntityType<?> entityType = BuiltInRegistries.ENTITY_TYPE.get(id);
+            if (isMob(entityType)) return (EntityType<Mob>)entityType;
         }
+        return null;
     }
 
     public static boolean isMob(EntityType<?> entityType) {
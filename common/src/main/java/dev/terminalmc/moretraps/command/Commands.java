@@ -21,9 +21,14 @@ import com.mojang.brigadier.CommandDispatcher;
 import com.mojang.brigadier.builder.LiteralArgumentBuilder;
 import dev.terminalmc.moretraps.MoreTraps;
 import dev.terminalmc.moretraps.config.Config;
+import dev.terminalmc.moretraps.config.ConfigWatcher;
+import dev.terminalmc.moretraps.stats.TrapStats;
 import net.minecraft.commands.CommandBuildContext;
+import net.minecraft.network.chat.Component;
 import net.minecraft.network.chat.MutableComponent;
 
+import java.io.IOException;
+
 import static net.minecraft.commands.Commands.literal;
 
 @SuppressWarnings("unchecked")
@@ -62,12 +67,44 @@ public class Commands<S> extends CommandDispatcher<S> {
                 .then(literal("reload")
                         .executes(ctx -> {
                             MutableComponent msg = MoreTraps.PREFIX.copy();
-                            Config.loadAndSave();
-                            msg.append("Config reloaded");
+                            ConfigWatcher.requestReload();
+                            msg.append("Config reload scheduled");
                             ctx.getSource().getPlayer().sendSystemMessage(msg);
                             return Command.SINGLE_SUCCESS;
                         })
                 )
+                .then(literal("stats")
+                        .executes(ctx -> {
+                            ctx.getSource().getPlayer().sendSystemMessage(
+                                    MoreTraps.PREFIX.copy().append("Statistics"));
+                            for (String line : TrapStats.report()) {
+                                ctx.getSource().getPlayer().sendSystemMessage(Component.literal(line));
+                            }
+                            return Command.SINGLE_SUCCESS;
+                        })
+                        .then(literal("reset")
+                                .executes(ctx -> {
+                                    MutableComponent msg = MoreTraps.PREFIX.copy();
+                                    TrapStats.reset();
+                                    msg.append("Statistics reset");
+                                    ctx.getSource().getPlayer().sendSystemMessage(msg);
+                                    return Command.SINGLE_SUCCESS;
+                                })
+                        )
+                        .then(literal("dump")
+                                .executes(ctx -> {
+                                    MutableComponent msg = MoreTraps.PREFIX.copy();
+                                    try {
+                                        msg.append("Statistics written to " + TrapStats.dump());
+                                    } catch (IOException e) {
+                                        MoreTraps.LOG.error("Unable to write statistics.", e);
+                                        msg.append("Unable to write statistics");
+                                    }
+                                    ctx.getSource().getPlayer().sendSystemMessage(msg);
+                                    return Command.SINGLE_SUCCESS;
+                                })
+                        )
+                )
         );
     }
 }
@@ -0,0 +1,304 @@
+/*
+ * Copyright 2024 TerminalMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dev.terminalmc.moretraps.config;
+
+import dev.terminalmc.moretraps.MoreTraps;
+import dev.terminalmc.moretraps.entity.TrapMob;
+import dev.terminalmc.moretraps.trap.EffectPool;
+import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+import net.minecraft.core.registries.BuiltInRegistries;
+import net.minecraft.world.entity.EntityType;
+import net.minecraft.world.entity.Mob;
+import net.minecraft.world.entity.MobSpawnType;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Immutable snapshot of the {@link Config} values read by the trap hot paths.
+ *
+ * <p>A new snapshot is compiled and published whenever the config is saved or
+ * reloaded, so readers never observe a partially-edited {@link Config.Options}
+ * instance. Hot paths should call {@link #get()} once and keep the result for
+ * the rest of the call.</p>
+ */
+public final class CompiledConfig {
+    private static volatile CompiledConfig current = new CompiledConfig(new Config());
+
+    public final boolean enabled;
+    public final boolean debugMode;
+    public final float activationRange;
+    public final int triggerCheckInterval;
+    public final boolean allowInstant;
+    public final boolean lazyRoll;
+    /**
+     * Bitmask of the allowed {@link MobSpawnType} ordinals.
+     */
+    public final int spawnTypeMask;
+    /**
+     * Maximum number of trap entities to spawn per tick per level, or 0 for
+     * no limit.
+     */
+    public final int maxSpawnsPerTick;
+    /**
+     * Maximum time to spend spawning trap entities per tick per level, or 0
+     * for no limit.
+     */
+    public final long spawnTimeBudgetNanos;
+    /**
+     * Range within which trap entities are created ahead of the trigger. Not
+     * greater than {@link #activationRange} if staging is disabled.
+     */
+    public final float prepareRange;
+    /**
+     * Maximum number of trap entities to stage per tick per level.
+     */
+    public final int maxStagedPerTick;
+    public final RateLimit levelTriggerLimit;
+    public final RateLimit levelSpawnLimit;
+    public final RateLimit playerTriggerLimit;
+    public final Config.RateLimitPolicy rateLimitPolicy;
+    /**
+     * Spawns per minute above which a chunk is treated as a farm, or 0 if
+     * disabled.
+     */
+    public final int churnSpawnsPerMinute;
+    /**
+     * Maximum number of live trap spawns per chunk, or 0 for no limit.
+     */
+    public final int chunkSpawnCap;
+    /**
+     * Maximum number of live trap spawns per level, or 0 for no limit.
+     */
+    public final int levelSpawnCap;
+    /**
+     * Ticks a trap spawn must be out of range of every player before it is
+     * discarded, or 0 to never discard.
+     */
+    public final int idleDespawnTicks;
+    public final float idleDespawnRange;
+    public final int idleChecksPerTick;
+    /**
+     * Effect duration in ticks, or -1 for infinite.
+     */
+    public final int effectDuration;
+    public final boolean showParticles;
+    public final Config.TriggerEffects triggerEffects;
+    /**
+     * All beneficial effects, used by traps without an effect pool.
+     */
+    public final EffectPool beneficialEffects;
+    public final List<CompiledTrap> traps;
+
+    /**
+     * Trap groups indexed by the raw registry ID of their source entity type.
+     * Slots for entity types that are not trap sources are {@code null}.
+     * Ignores dimension and biome selectors, see
+     * {@link dev.terminalmc.moretraps.level.TrapTable} for those.
+     */
+    private final TrapGroup[] byTypeId;
+    /**
+     * Traps indexed by their position in {@link Config.Options#traps}. Slots
+     * for traps with an invalid source are {@code null}.
+     */
+    private final CompiledTrap[] byIndex;
+    /**
+     * Traps by {@link CompiledTrap#key}, used to find the trap assigned to a
+     * mob after the trap list has been reordered.
+     */
+    private final Int2ObjectMap<CompiledTrap> byKey;
+
+    private CompiledConfig(Config config) {
+        Config.Options options = config.options;
+        this.enabled = options.enabled;
+        this.debugMode = options.debugMode;
+        this.activationRange = options.activationRange;
+        this.triggerCheckInterval = Math.max(1, options.triggerCheckInterval);
+        this.allowInstant = options.allowInstant;
+        this.lazyRoll = options.lazyRoll;
+        this.spawnTypeMask = spawnTypeMask(options.allowedSpawnTypes, options.deniedSpawnTypes);
+        this.maxSpawnsPerTick = Math.max(0, options.maxSpawnsPerTick);
+        this.spawnTimeBudgetNanos = (long)(Math.max(0F, options.spawnTimeBudget) * 1_000_000L);
+        this.maxStagedPerTick = Math.max(0, options.maxStagedPerTick);
+        this.prepareRange = maxStagedPerTick > 0
+                ? options.activationRange * Math.max(1F, options.prepareRangeMultiplier)
+                : options.activationRange;
+        this.levelTriggerLimit = RateLimit.perMinute(options.levelTriggersPerMinute, options.levelTriggerBurst);
+        this.levelSpawnLimit = RateLimit.perMinute(options.levelSpawnsPerMinute, options.levelSpawnBurst);
+        this.playerTriggerLimit = RateLimit.perMinute(options.playerTriggersPerMinute, options.playerTriggerBurst);
+        this.rateLimitPolicy = options.rateLimitPolicy == null
+                ? Config.Options.defaultRateLimitPolicy : options.rateLimitPolicy;
+        this.churnSpawnsPerMinute = Math.max(0, options.churnSpawnsPerMinute);
+        this.chunkSpawnCap = Math.max(0, options.chunkSpawnCap);
+        this.levelSpawnCap = Math.max(0, options.levelSpawnCap);
+        this.idleDespawnTicks = Math.max(0, options.idleDespawnTime) * 20;
+        this.idleDespawnRange = options.idleDespawnRange;
+        this.idleChecksPerTick = Math.max(1, options.idleChecksPerTick);
+        this.effectDuration = options.effectDuration == -1 ? -1 : options.effectDuration * 20;
+        this.showParticles = options.showParticles;
+        this.triggerEffects = options.triggerEffects == null
+                ? Config.Options.defaultTriggerEffects : options.triggerEffects;
+        this.beneficialEffects = EffectPool.beneficial();
+
+        CompiledTrap[] compiled = new CompiledTrap[options.traps.size()];
+        int size = 0;
+        for (int i = 0; i < options.traps.size(); i++) {
+            Trap trap = options.traps.get(i);
+            @Nullable EntitySelector source = EntitySelector.parse(trap.sourceId);
+            if (source == null) continue;
+            compiled[size++] = new CompiledTrap(i, trap, source,
+                    EntitySelector.parse(trap.spawnId), EntitySelector.parse(trap.passengerId),
+                    EffectPool.parse(trap.effectPool, beneficialEffects));
+        }
+        this.traps = List.of(Arrays.copyOf(compiled, size));
+        this.byIndex = new CompiledTrap[options.traps.size()];
+        for (CompiledTrap trap : this.traps) {
+            byIndex[trap.index] = trap;
+        }
+
+        this.byKey = new Int2ObjectOpenHashMap<>(this.traps.size());
+        for (CompiledTrap trap : this.traps) {
+            byKey.putIfAbsent(trap.key, trap);
+        }
+
+        this.byTypeId = new TrapGroup[BuiltInRegistries.ENTITY_TYPE.size()];
+        Int2ObjectMap<List<CompiledTrap>> sameType = new Int2ObjectOpenHashMap<>();
+        for (CompiledTrap trap : this.traps) {
+            for (EntityType<Mob> type : trap.source.types()) {
+                int id = BuiltInRegistries.ENTITY_TYPE.getId(type);
+                if (id >= 0 && id < byTypeId.length) {
+                    sameType.computeIfAbsent(id, k -> new ArrayList<>()).add(trap);
+                }
+            }
+        }
+        for (Int2ObjectMap.Entry<List<CompiledTrap>> entry : sameType.int2ObjectEntrySet()) {
+            byTypeId[entry.getIntKey()] = TrapGroup.of(entry.getValue());
+        }
+    }
+
+    /**
+     * @return the most recently published snapshot.
+     */
+    public static CompiledConfig get() {
+        return current;
+    }
+
+    /**
+     * Compiles a snapshot of the specified config and publishes it to all
+     * subsequent {@link #get()} calls. Resolves tag selectors, so must be
+     * called on the server thread, where tags can't change mid-compile.
+     */
+    public static CompiledConfig publish(Config config) {
+        CompiledConfig compiled = new CompiledConfig(config);
+        current = compiled;
+        return compiled;
+    }
+
+    /**
+     * @param spawnType the reason the mob was spawned, or {@code null} if
+     *                  unknown.
+     * @return whether mobs spawned for the specified reason may become trap
+     * sources.
+     */
+    public boolean allowsSpawnType(@Nullable MobSpawnType spawnType) {
+        return spawnType == null || (spawnTypeMask & (1 << spawnType.ordinal())) != 0;
+    }
+
+    /**
+     * Compiles spawn type allow and deny lists into a bitmask of allowed
+     * {@link MobSpawnType} ordinals, skipping invalid entries.
+     * @param allowed the allowed spawn types, or empty to allow all.
+     * @param denied the denied spawn types, which take precedence.
+     */
+    static int spawnTypeMask(List<String> allowed, List<String> denied) {
+        int mask = allowed.isEmpty() ? -1 : 0;
+        for (String entry : allowed) {
+            @Nullable MobSpawnType type = parseSpawnType(entry);
+            if (type != null) mask |= 1 << type.ordinal();
+        }
+        for (String entry : denied) {
+            @Nullable MobSpawnType type = parseSpawnType(entry);
+            if (type != null) mask &= ~(1 << type.ordinal());
+        }
+        return mask;
+    }
+
+    private static @Nullable MobSpawnType parseSpawnType(String entry) {
+        try {
+            return MobSpawnType.valueOf(entry.strip().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            MoreTraps.LOG.warn("Ignoring invalid spawn type '{}'", entry);
+            return null;
+        }
+    }
+
+    /**
+     * @return the traps with the specified source type, or {@code null} if the
+     * type is not a trap source.
+     */
+    public @Nullable TrapGroup getByType(EntityType<?> type) {
+        int id = BuiltInRegistries.ENTITY_TYPE.getId(type);
+        return id >= 0 && id < byTypeId.length ? byTypeId[id] : null;
+    }
+
+    /**
+     * @return the trap assigned to the specified source mob, or {@code null}
+     * if it no longer has one.
+     */
+    public @Nullable CompiledTrap getForSource(Mob mob) {
+        TrapMob trapMob = TrapMob.of(mob);
+        @Nullable CompiledTrap trap = getByIndex(trapMob.moretraps$getTrapIndex());
+        int key = trapMob.moretraps$getTrapKey();
+        if (key != 0) {
+            // Follow the assigned trap if it has moved, but never substitute
+            // another
+            if (trap == null || trap.key != key) trap = byKey.get(key);
+        } else if (trap == null || !trap.source.matches(mob.getType())) {
+            // Assigned by an older version without trap keys
+            @Nullable TrapGroup group = getByType(mob.getType());
+            trap = group == null ? null : group.first();
+        }
+        return trap != null && trap.source.matches(mob.getType()) ? trap : null;
+    }
+
+    /**
+     * @return the trap at the specified config index, or {@code null} if the
+     * index is out of range or the trap is invalid.
+     */
+    public @Nullable CompiledTrap getByIndex(int index) {
+        return index >= 0 && index < byIndex.length ? byIndex[index] : null;
+    }
+
+    /**
+     * Token bucket parameters.
+     * @param perTick tokens added per tick, or 0 if unlimited.
+     * @param capacity maximum tokens held.
+     */
+    public record RateLimit(double perTick, double capacity) {
+        static RateLimit perMinute(float perMinute, int burst) {
+            return new RateLimit(Math.max(0F, perMinute) / 1200D, Math.max(1, burst));
+        }
+
+        public boolean enabled() {
+            return perTick > 0;
+        }
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright 2024 TerminalMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dev.terminalmc.moretraps.config;
+
+import dev.terminalmc.moretraps.MoreTraps;
+import dev.terminalmc.moretraps.trap.EffectPool;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.world.entity.MobSpawnType;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Read-only copy of a {@link Trap} with its entity IDs resolved, safe to share
+ * between the server thread and world generation threads.
+ */
+public final class CompiledTrap {
+    public final int index;
+    /**
+     * Identifies the trap across config reloads, independent of its position
+     * in the trap list. Never 0.
+     */
+    public final int key;
+    public final EntitySelector source;
+    public final @Nullable EntitySelector spawn;
+    public final @Nullable EntitySelector passenger;
+    public final boolean passengerOnSource;
+    public final boolean invertRiding;
+    public final float chance;
+    public final float weight;
+    public final int spawnNum;
+    public final int effectNum;
+    public final EffectPool effectPool;
+    /**
+     * The maximum number of entities spawned by one trigger.
+     */
+    public final int entityCost;
+    /**
+     * The dimensions this trap applies in, or {@code null} for all.
+     */
+    public final @Nullable Set<ResourceLocation> dimensions;
+    /**
+     * The biomes this trap applies in, or {@code null} for all.
+     */
+    public final @Nullable Set<ResourceLocation> biomes;
+    /**
+     * Bitmask of the allowed {@link MobSpawnType} ordinals.
+     */
+    public final int spawnTypeMask;
+
+    CompiledTrap(int index, Trap trap, EntitySelector source,
+                 @Nullable EntitySelector spawn, @Nullable EntitySelector passenger,
+                 EffectPool effectPool) {
+        this.index = index;
+        this.key = keyOf(trap);
+        this.source = source;
+        this.spawn = spawn;
+        this.passenger = passenger;
+        this.passengerOnSource = trap.passengerOnSource;
+        this.invertRiding = trap.invertRiding;
+        this.chance = trap.chance;
+        this.weight = Float.isFinite(trap.weight) ? Math.max(0F, trap.weight) : 0F;
+        this.spawnNum = trap.spawnNum;
+        this.effectNum = trap.effectNum;
+        this.effectPool = effectPool;
+
+        EntitySelector unit = invertRiding ? passenger : spawn;
+        EntitySelector unitPassenger = invertRiding ? spawn : passenger;
+        int cost = unit == null ? 0 : Math.max(0, spawnNum) * (unitPassenger == null ? 1 : 2);
+        if (passengerOnSource && passenger != null) cost++;
+        this.entityCost = cost;
+
+        this.dimensions = parseIds(trap.dimensions, "dimension");
+        this.biomes = parseIds(trap.biomes, "biome");
+        this.spawnTypeMask = CompiledConfig.spawnTypeMask(trap.allowedSpawnTypes, trap.deniedSpawnTypes);
+    }
+
+    /**
+     * @return whether this trap applies to mobs spawned for the specified
+     * reason.
+     */
+    public boolean allowsSpawnType(MobSpawnType spawnType) {
+        return (spawnTypeMask & (1 << spawnType.ordinal())) != 0;
+    }
+
+    /**
+     * @return whether this trap applies in the specified dimension.
+     */
+    public boolean appliesIn(ResourceLocation dimension) {
+        return dimensions == null || dimensions.contains(dimension);
+    }
+
+    /**
+     * @return a hash of the fields that determine what the trap spawns, so
+     * that tuning a trap keeps its key but replacing it does not.
+     */
+    private static int keyOf(Trap trap) {
+        int key = Objects.hash(trap.sourceId, trap.spawnId, trap.passengerId,
+                trap.passengerOnSource, trap.invertRiding);
+        return key == 0 ? 1 : key;
+    }
+
+    /**
+     * @return the valid IDs in {@code entries}, or {@code null} if
+     * {@code entries} is empty. A list with no valid IDs matches nothing.
+     */
+    private static @Nullable Set<ResourceLocation> parseIds(List<String> entries, String kind) {
+        if (entries.isEmpty()) return null;
+        Set<ResourceLocation> ids = new HashSet<>();
+        for (String entry : entries) {
+            @Nullable ResourceLocation id = ResourceLocation.tryParse(entry.strip());
+            if (id == null) {
+                MoreTraps.LOG.warn("Ignoring invalid {} entry '{}'", kind, entry);
+                continue;
+            }
+            ids.add(id);
+        }
+        return Set.copyOf(ids);
+    }
+}
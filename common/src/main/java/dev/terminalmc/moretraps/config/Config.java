@@ -28,12 +28,39 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
 public class Config {
     private static final Path DIR_PATH = Path.of("config");
     private static final String FILE_NAME = MoreTraps.MOD_ID + ".json";
     private static final Gson GSON = new GsonBuilder().setPrettyPrinting().create();
+    private static final long WRITE_DELAY_MILLIS = 250;
+    private static final ScheduledExecutorService WRITER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, MoreTraps.MOD_NAME + " Config Writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private static final Object WRITE_LOCK = new Object();
+    private static final AtomicReference<PendingSave> pendingSave = new AtomicReference<>();
+    private static final AtomicBoolean writeScheduled = new AtomicBoolean();
+    /**
+     * Number of calls to {@link #save()}, used to order saves against
+     * reloads.
+     */
+    private static final AtomicLong saveCount = new AtomicLong();
+    /**
+     * The {@link #saveCount} of the save most recently written to the file.
+     */
+    private static volatile long writtenCount = 0;
+
+    private record PendingSave(String json, long count) {}
 
     // Options
 
@@ -49,15 +76,82 @@ public class Config {
         public static final float defaultActivationRange = 10F;
         public float activationRange = defaultActivationRange;
 
+        public static final int defaultTriggerCheckInterval = 4;
+        public int triggerCheckInterval = defaultTriggerCheckInterval;
+
         public static final boolean defaultAllowInstant = false;
         public boolean allowInstant = defaultAllowInstant;
 
+        public static final boolean defaultLazyRoll = false;
+        public boolean lazyRoll = defaultLazyRoll;
+
+        public static final List<String> defaultAllowedSpawnTypes = List.of();
+        public List<String> allowedSpawnTypes = new ArrayList<>(defaultAllowedSpawnTypes);
+
+        public static final List<String> defaultDeniedSpawnTypes = List.of(
+                "spawner", "trial_spawner", "breeding", "bucket");
+        public List<String> deniedSpawnTypes = new ArrayList<>(defaultDeniedSpawnTypes);
+
+        public static final int defaultMaxSpawnsPerTick = 20;
+        public int maxSpawnsPerTick = defaultMaxSpawnsPerTick;
+
+        public static final float defaultSpawnTimeBudget = 5F;
+        public float spawnTimeBudget = defaultSpawnTimeBudget;
+
+        public static final float defaultPrepareRangeMultiplier = 1.5F;
+        public float prepareRangeMultiplier = defaultPrepareRangeMultiplier;
+
+        public static final int defaultMaxStagedPerTick = 10;
+        public int maxStagedPerTick = defaultMaxStagedPerTick;
+
+        public static final float defaultLevelTriggersPerMinute = 0F;
+        public float levelTriggersPerMinute = defaultLevelTriggersPerMinute;
+
+        public static final int defaultLevelTriggerBurst = 5;
+        public int levelTriggerBurst = defaultLevelTriggerBurst;
+
+        public static final float defaultLevelSpawnsPerMinute = 0F;
+        public float levelSpawnsPerMinute = defaultLevelSpawnsPerMinute;
+
+        public static final int defaultLevelSpawnBurst = 60;
+        public int levelSpawnBurst = defaultLevelSpawnBurst;
+
+        public static final float defaultPlayerTriggersPerMinute = 0F;
+        public float playerTriggersPerMinute = defaultPlayerTriggersPerMinute;
+
+        public static final int defaultPlayerTriggerBurst = 3;
+        public int playerTriggerBurst = defaultPlayerTriggerBurst;
+
+        public static final RateLimitPolicy defaultRateLimitPolicy = RateLimitPolicy.DEFER;
+        public RateLimitPolicy rateLimitPolicy = defaultRateLimitPolicy;
+
+        public static final int defaultChurnSpawnsPerMinute = 60;
+        public int churnSpawnsPerMinute = defaultChurnSpawnsPerMinute;
+
+        public static final int defaultChunkSpawnCap = 32;
+        public int chunkSpawnCap = defaultChunkSpawnCap;
+
+        public static final int defaultLevelSpawnCap = 512;
+        public int levelSpawnCap = defaultLevelSpawnCap;
+
+        public static final int defaultIdleDespawnTime = 300;
+        public int idleDespawnTime = defaultIdleDespawnTime;
+
+        public static final float defaultIdleDespawnRange = 64F;
+        public float idleDespawnRange = defaultIdleDespawnRange;
+
+        public static final int defaultIdleChecksPerTick = 20;
+        public int idleChecksPerTick = defaultIdleChecksPerTick;
+
         public static final int defaultEffectDuration = -1;
         public int effectDuration = defaultEffectDuration;
 
         public static final boolean defaultShowParticles = false;
         public boolean showParticles = defaultShowParticles;
 
+        public static final TriggerEffects defaultTriggerEffects = TriggerEffects.PACKET;
+        public TriggerEffects triggerEffects = defaultTriggerEffects;
+
         public static final List<Trap> defaultTrapEntities = List.of(
                 new Trap("minecraft:pig", "minecraft:pig", "minecraft:zombified_piglin", true, false, 0.05F, 3, 4),
                 new Trap("minecraft:horse", "minecraft:horse", "minecraft:pillager", true, false, 0.05F, 2, 0)
@@ -65,15 +159,50 @@ public class Config {
         public List<Trap> traps = defaultTrapEntities;
     }
 
+    public enum RateLimitPolicy {
+        /**
+         * Keep the trap armed and retry on a later check.
+         */
+        DEFER,
+        /**
+         * Disarm the trap without triggering it.
+         */
+        DROP,
+    }
+
+    public enum TriggerEffects {
+        /**
+         * Spawn a visual-only lightning bolt entity.
+         */
+        ENTITY,
+        /**
+         * Send the lightning directly to nearby players, and bundle the
+         * packets of each burst of trap spawns.
+         */
+        PACKET,
+    }
+
     // Instance management
 
-    private static Config instance = null;
+    private static volatile Config instance = null;
+    /**
+     * The JSON most recently written by {@link #save()}, used to tell the
+     * mod's own writes apart from external edits.
+     */
+    private static volatile @Nullable String lastSavedJson = null;
 
     public static Config get() {
-        if (instance == null) {
-            instance = Config.load();
+        Config config = instance;
+        if (config == null) {
+            synchronized (Config.class) {
+                config = instance;
+                if (config == null) {
+                    config = Config.load();
+                    instance = config;
+                }
+            }
         }
-        return instance;
+        return config;
     }
 
     public static Config getAndSave() {
@@ -94,6 +223,14 @@ public class Config {
         return instance;
     }
 
+    /**
+     * Replaces the instance with one loaded by the {@link ConfigWatcher},
+     * without saving.
+     */
+    static void swap(Config config) {
+        instance = config;
+    }
+
     // Cleanup
 
     private void cleanup() {
@@ -114,6 +251,48 @@ public class Config {
         return config;
     }
 
+    static Path dir() {
+        return DIR_PATH;
+    }
+
+    static Path file() {
+        return DIR_PATH.resolve(FILE_NAME);
+    }
+
+    /**
+     * @return whether the JSON matches what was last written by
+     * {@link #save()}.
+     */
+    static boolean isLastSaved(String json) {
+        return json.equals(lastSavedJson);
+    }
+
+    /**
+     * @return the number of saves so far, which increases with every save.
+     */
+    static long saveCount() {
+        return saveCount.get();
+    }
+
+    /**
+     * @return whether a save has not yet been written, so the file is older
+     * than the in-game config.
+     */
+    static boolean hasUnwrittenSave() {
+        return writtenCount < saveCount.get();
+    }
+
+    static @Nullable Config parse(String json) {
+        try {
+            return GSON.fromJson(json, Config.class);
+        } catch (Exception e) {
+            // Catch Exception as errors in deserialization may not fall under
+            // JsonParseException, but should not crash the game.
+            MoreTraps.LOG.error("Unable to parse config.", e);
+            return null;
+        }
+    }
+
     private static @Nullable Config load(Path file, Gson gson) {
         try (FileReader reader = new FileReader(file.toFile())) {
             return gson.fromJson(reader, Config.class);
@@ -125,24 +304,54 @@ public class Config {
         }
     }
 
+    /**
+     * Serializes the config on the calling thread and applies it immediately,
+     * but leaves the file write to the background writer. Saves made before
+     * the writer runs are coalesced into a single write.
+     */
     public static void save() {
-        if (instance == null) return;
-        instance.cleanup();
-        try {
-            if (!Files.isDirectory(DIR_PATH)) Files.createDirectories(DIR_PATH);
-            Path file = DIR_PATH.resolve(FILE_NAME);
-            Path tempFile = file.resolveSibling(file.getFileName() + ".tmp");
+        Config config = instance;
+        if (config == null) return;
+        config.cleanup();
+        String json = GSON.toJson(config);
+        long count = saveCount.incrementAndGet();
+        lastSavedJson = json;
+        pendingSave.set(new PendingSave(json, count));
+        if (writeScheduled.compareAndSet(false, true)) {
+            WRITER.schedule(Config::writePending, WRITE_DELAY_MILLIS, TimeUnit.MILLISECONDS);
+        }
+        MoreTraps.onConfigSaved(config);
+    }
+
+    /**
+     * Writes any pending save on the calling thread, blocking until done.
+     */
+    public static void flush() {
+        writePending();
+    }
+
+    private static void writePending() {
+        synchronized (WRITE_LOCK) {
+            writeScheduled.set(false);
+            @Nullable PendingSave save = pendingSave.getAndSet(null);
+            if (save == null) return;
+            String json = save.json;
+            try {
+                if (!Files.isDirectory(DIR_PATH)) Files.createDirectories(DIR_PATH);
+                Path file = DIR_PATH.resolve(FILE_NAME);
+                Path tempFile = file.resolveSibling(file.getFileName() + ".tmp");
 
-            try (FileWriter writer = new FileWriter(tempFile.toFile())) {
-                writer.write(GSON.toJson(instance));
+                try (FileWriter writer = new FileWriter(tempFile.toFile())) {
+                    writer.write(json);
+                } catch (IOException e) {
+                    throw new IOException(e);
+                }
+                Files.move(tempFile, file, StandardCopyOption.ATOMIC_MOVE,
+                        StandardCopyOption.REPLACE_EXISTING);
+                writtenCount = save.count;
             } catch (IOException e) {
-                throw new IOException(e);
+                MoreTraps.LOG.error("Unable to save config.", e);
             }
-            Files.move(tempFile, file, StandardCopyOption.ATOMIC_MOVE,
-                    StandardCopyOption.REPLACE_EXISTING);
-            MoreTraps.onConfigSaved(instance);
-        } catch (IOException e) {
-            MoreTraps.LOG.error("Unable to save config.", e);
         }
     }
 }
@@ -0,0 +1,171 @@
+/*
+ * Copyright 2024 TerminalMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dev.terminalmc.moretraps.config;
+
+import dev.terminalmc.moretraps.MoreTraps;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Watches the config file for external edits, and reloads it off the server
+ * thread.
+ *
+ * <p>Changes are parsed on a background thread, then swapped in and compiled
+ * by {@link #applyPending()} at the next server tick. Compiling resolves tag
+ * selectors, so is left to the server thread, where it can't overlap a
+ * datapack tag reload. Bursts of file events are coalesced into a single
+ * reload, and files matching the mod's own last write are ignored.</p>
+ */
+public class ConfigWatcher {
+    private static final long SETTLE_MILLIS = 200;
+
+    private static final AtomicReference<Loaded> pending = new AtomicReference<>();
+    /**
+     * Incremented by {@link #discardPending()}, so that loads started before a
+     * save are dropped even if they finish after it.
+     */
+    private static final AtomicLong generation = new AtomicLong();
+    private static @Nullable ScheduledExecutorService executor = null;
+    private static @Nullable ScheduledFuture<?> scheduled = null;
+
+    private record Loaded(Config config, long generation) {}
+
+    /**
+     * Starts watching the config directory, if not already started.
+     */
+    public static synchronized void start() {
+        if (executor != null) return;
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, MoreTraps.MOD_NAME + " Config Loader");
+            thread.setDaemon(true);
+            return thread;
+        });
+        Thread watcher = new Thread(ConfigWatcher::watch, MoreTraps.MOD_NAME + " Config Watcher");
+        watcher.setDaemon(true);
+        watcher.start();
+    }
+
+    /**
+     * Schedules a reload of the config file, even if it was last written by
+     * the mod.
+     */
+    public static void requestReload() {
+        start();
+        schedule(true);
+    }
+
+    /**
+     * Swaps in the most recently loaded config, if any. Called from the
+     * server tick.
+     */
+    public static void applyPending() {
+        @Nullable Loaded loaded = pending.getAndSet(null);
+        if (loaded == null || loaded.generation != generation.get()) return;
+        Config.swap(loaded.config);
+        CompiledConfig.publish(loaded.config);
+        MoreTraps.LOG.info("Config reloaded");
+    }
+
+    /**
+     * Drops any loaded config not yet swapped in, as it is older than a
+     * config that was just saved.
+     */
+    public static void discardPending() {
+        generation.incrementAndGet();
+        pending.set(null);
+    }
+
+    private static synchronized void schedule(boolean force) {
+        if (executor == null) return;
+        if (scheduled != null) scheduled.cancel(false);
+        scheduled = executor.schedule(() -> reload(force), SETTLE_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    private static void watch() {
+        Path dir = Config.dir();
+        Path fileName = Config.file().getFileName();
+        try (WatchService service = FileSystems.getDefault().newWatchService()) {
+            Files.createDirectories(dir);
+            dir.register(service, StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY);
+            while (true) {
+                WatchKey key = service.take();
+                boolean changed = false;
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (event.kind() == StandardWatchEventKinds.OVERFLOW
+                            || fileName.equals(event.context())) {
+                        changed = true;
+                    }
+                }
+                if (changed) schedule(false);
+                if (!key.reset()) {
+                    MoreTraps.LOG.warn("Config directory is no longer watched.");
+                    return;
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // Shutting down
+        } catch (IOException e) {
+            MoreTraps.LOG.error("Unable to watch config directory.", e);
+        }
+    }
+
+    private static void reload(boolean force) {
+        if (force) {
+            // Read the in-game config rather than an older file
+            Config.flush();
+        } else if (Config.hasUnwrittenSave()) {
+            // The file is older than the in-game config, and the pending
+            // write will trigger another reload
+            return;
+        }
+        long startGeneration = generation.get();
+        long saveCount = Config.saveCount();
+        Path file = Config.file();
+        if (!Files.exists(file)) return;
+        String json;
+        try {
+            json = Files.readString(file);
+        } catch (IOException e) {
+            MoreTraps.LOG.error("Unable to read config.", e);
+            return;
+        }
+        if (!force && Config.isLastSaved(json)) return;
+        @Nullable Config config = Config.parse(json);
+        if (config == null) return;
+        // Saved in-game while reading, so the file contents are out of date
+        if (Config.saveCount() != saveCount) return;
+        if (generation.get() != startGeneration) return;
+        // Rechecked by applyPending in case of a save after this point
+        pending.set(new Loaded(config, startGeneration));
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright 2024 TerminalMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.terminalmc.moretraps.config;
+
+import dev.terminalmc.moretraps.MoreTraps;
+import net.minecraft.core.Holder;
+import net.minecraft.core.registries.BuiltInRegistries;
+import net.minecraft.core.registries.Registries;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.tags.TagKey;
+import net.minecraft.util.RandomSource;
+import net.minecraft.world.entity.EntityType;
+import net.minecraft.world.entity.Mob;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Immutable set of mob entity types matched by a selector string, resolved
+ * to a bitset over entity type raw IDs.
+ *
+ * <p>Accepts a single entity ID ({@code minecraft:pig}), an entity type tag
+ * ({@code #minecraft:undead}) or all entities in a namespace
+ * ({@code somemod:*}). Non-mob entity types are never matched. Tags resolve
+ * to nothing until they are loaded, so selectors must be recompiled when
+ * tags are reloaded.</p>
+ */
+public final class EntitySelector {
+    public static final String TAG_PREFIX = "#";
+    public static final String WILDCARD_SUFFIX = ":*";
+
+    private final BitSet types;
+    /**
+     * The matched types, in raw ID order.
+     */
+    private final EntityType<Mob>[] candidates;
+
+    private EntitySelector(BitSet types, EntityType<Mob>[] candidates) {
+        this.types = types;
+        this.candidates = candidates;
+    }
+
+    /**
+     * @return the selector, or {@code null} if the string is invalid or
+     * matches no mob entity types.
+     */
+    @SuppressWarnings("unchecked")
+    public static @Nullable EntitySelector parse(String selector) {
+        selector = selector.strip();
+        if (selector.isEmpty()) return null;
+        BitSet types = new BitSet(BuiltInRegistries.ENTITY_TYPE.size());
+
+        if (selector.startsWith(TAG_PREFIX)) {
+            @Nullable ResourceLocation id = ResourceLocation.tryParse(selector.substring(TAG_PREFIX.length()));
+            if (id == null) return null;
+            BuiltInRegistries.ENTITY_TYPE.getTag(TagKey.create(Registries.ENTITY_TYPE, id))
+                    .ifPresent(tag -> {
+                        for (Holder<EntityType<?>> holder : tag) add(types, holder.value());
+                    });
+        } else if (selector.endsWith(WILDCARD_SUFFIX)) {
+            String namespace = selector.substring(0, selector.length() - WILDCARD_SUFFIX.length());
+            for (EntityType<?> type : BuiltInRegistries.ENTITY_TYPE) {
+                if (BuiltInRegistries.ENTITY_TYPE.getKey(type).getNamespace().equals(namespace)) {
+                    add(types, type);
+                }
+            }
+        } else {
+            @Nullable EntityType<Mob> type = MoreTraps.resolveMob(selector);
+            if (type != null) add(types, type);
+        }
+
+        if (types.isEmpty()) return null;
+        EntityType<Mob>[] candidates = new EntityType[types.cardinality()];
+        int i = 0;
+        for (int id = types.nextSetBit(0); id >= 0; id = types.nextSetBit(id + 1)) {
+            candidates[i++] = (EntityType<Mob>)BuiltInRegistries.ENTITY_TYPE.byId(id);
+        }
+        return new EntitySelector(types, candidates);
+    }
+
+    private static void add(BitSet types, EntityType<?> type) {
+        if (!MoreTraps.isMob(type)) return;
+        int id = BuiltInRegistries.ENTITY_TYPE.getId(type);
+        if (id >= 0) types.set(id);
+    }
+
+    public boolean matches(EntityType<?> type) {
+        int id = BuiltInRegistries.ENTITY_TYPE.getId(type);
+        return id >= 0 && types.get(id);
+    }
+
+    /**
+     * @return a uniformly random matched type.
+     */
+    public EntityType<Mob> pick(RandomSource random) {
+        return candidates.length == 1 ? candidates[0] : candidates[random.nextInt(candidates.length)];
+    }
+
+    /**
+     * @return the matched types, in raw ID order.
+     */
+    public List<EntityType<Mob>> types() {
+        return List.of(candidates);
+    }
+}
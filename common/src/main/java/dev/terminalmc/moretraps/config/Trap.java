@@ -16,9 +16,8 @@
 
 package dev.terminalmc.moretraps.config;
 
-import net.minecraft.world.entity.EntityType;
-import net.minecraft.world.entity.Mob;
-import org.jetbrains.annotations.Nullable;
+import java.util.ArrayList;
+import java.util.List;
 
 public class Trap {
     public static final String defaultSourceId = "";
@@ -39,15 +38,29 @@ public class Trap {
     public static final float defaultChance = 0.05F;
     public float chance = defaultChance;
 
+    public static final float defaultWeight = 1F;
+    public float weight = defaultWeight;
+
     public static final int defaultSpawnNum = 3;
     public int spawnNum = defaultSpawnNum;
 
     public static final int defaultEffectNum = 0;
     public int effectNum = defaultEffectNum;
 
-    public @Nullable transient EntityType<Mob> sourceType;
-    public @Nullable transient EntityType<Mob> spawnType;
-    public @Nullable transient EntityType<Mob> passengerType;
+    public static final List<String> defaultEffectPool = List.of();
+    public List<String> effectPool = new ArrayList<>(defaultEffectPool);
+
+    public static final List<String> defaultDimensions = List.of();
+    public List<String> dimensions = new ArrayList<>(defaultDimensions);
+
+    public static final List<String> defaultBiomes = List.of();
+    public List<String> biomes = new ArrayList<>(defaultBiomes);
+
+    public static final List<String> defaultAllowedSpawnTypes = List.of();
+    public List<String> allowedSpawnTypes = new ArrayList<>(defaultAllowedSpawnTypes);
+
+    public static final List<String> defaultDeniedSpawnTypes = List.of();
+    public List<String> deniedSpawnTypes = new ArrayList<>(defaultDeniedSpawnTypes);
 
     public Trap() {
     }
@@ -71,13 +84,4 @@ public class Trap {
         this.spawnNum = spawnNum;
         this.effectNum = effectNum;
     }
-
-    public static @Nullable Trap getByType(EntityType<?> type) {
-        for (Trap trap : Config.get().options.traps) {
-            if (trap.sourceType != null && trap.sourceType.equals(type)) {
-                return trap;
-            }
-        }
-        return null;
-    }
 }
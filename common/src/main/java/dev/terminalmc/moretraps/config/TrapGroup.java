@@ -0,0 +1,109 @@
+/*
+ * Copyright 2024 TerminalMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.terminalmc.moretraps.config;
+
+import dev.terminalmc.moretraps.util.AliasTable;
+import net.minecraft.util.RandomSource;
+import net.minecraft.world.entity.MobSpawnType;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Immutable set of traps sharing a source type, with their weights compiled
+ * into an {@link AliasTable}.
+ */
+public final class TrapGroup {
+    private final CompiledTrap[] traps;
+    /**
+     * {@code null} if all traps are equally weighted.
+     */
+    private final @Nullable AliasTable weights;
+    /**
+     * Subgroups of the traps allowing each {@link MobSpawnType}, indexed by
+     * ordinal. {@code null} if this is itself a subgroup.
+     */
+    private final TrapGroup @Nullable [] bySpawnType;
+
+    private TrapGroup(CompiledTrap[] traps, @Nullable AliasTable weights, boolean subgroups) {
+        this.traps = traps;
+        this.weights = weights;
+        if (!subgroups) {
+            this.bySpawnType = null;
+            return;
+        }
+        MobSpawnType[] spawnTypes = MobSpawnType.values();
+        this.bySpawnType = new TrapGroup[spawnTypes.length];
+        for (MobSpawnType spawnType : spawnTypes) {
+            List<CompiledTrap> allowed = Arrays.stream(traps)
+                    .filter(trap -> trap.allowsSpawnType(spawnType))
+                    .toList();
+            bySpawnType[spawnType.ordinal()] = allowed.size() == traps.length
+                    ? this : create(allowed, false);
+        }
+    }
+
+    /**
+     * Creates a group from the specified traps, skipping those with a weight
+     * of zero.
+     * @return the group, or {@code null} if no traps have a positive weight.
+     */
+    public static @Nullable TrapGroup of(List<CompiledTrap> candidates) {
+        return create(candidates, true);
+    }
+
+    private static @Nullable TrapGroup create(List<CompiledTrap> candidates, boolean subgroups) {
+        CompiledTrap[] traps = candidates.stream()
+                .filter(trap -> trap.weight > 0)
+                .toArray(CompiledTrap[]::new);
+        if (traps.length == 0) return null;
+        float[] weights = new float[traps.length];
+        boolean weighted = false;
+        for (int i = 0; i < traps.length; i++) {
+            weights[i] = traps[i].weight;
+            if (weights[i] != traps[0].weight) weighted = true;
+        }
+        return new TrapGroup(traps, weighted ? new AliasTable(weights) : null, subgroups);
+    }
+
+    /**
+     * @param spawnType the reason the mob was spawned, or {@code null} if
+     *                  unknown.
+     * @return the traps in this group that apply to mobs spawned for the
+     * specified reason, or {@code null} if none do.
+     */
+    public @Nullable TrapGroup forSpawnType(@Nullable MobSpawnType spawnType) {
+        if (spawnType == null || bySpawnType == null) return this;
+        return bySpawnType[spawnType.ordinal()];
+    }
+
+    /**
+     * @return a random trap from the group, distributed according to the
+     * trap weights.
+     */
+    public CompiledTrap pick(RandomSource random) {
+        if (traps.length == 1) return traps[0];
+        return traps[weights == null ? random.nextInt(traps.length) : weights.sample(random)];
+    }
+
+    /**
+     * @return the first trap in the group, in config order.
+     */
+    public CompiledTrap first() {
+        return traps[0];
+    }
+}
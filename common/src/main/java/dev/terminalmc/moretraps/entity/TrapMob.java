@@ -0,0 +1,90 @@
+/*
+ * Copyright 2024 TerminalMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dev.terminalmc.moretraps.entity;
+
+import dev.terminalmc.moretraps.config.CompiledTrap;
+import dev.terminalmc.moretraps.level.ArmedTraps;
+import dev.terminalmc.moretraps.level.TrapSpawns;
+import net.minecraft.world.entity.Mob;
+import net.minecraft.world.entity.MobSpawnType;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Implemented on {@link Mob} via mixin, replacing the string tags previously
+ * used to track trap state.
+ */
+public interface TrapMob {
+    TrapState moretraps$getTrapState();
+
+    void moretraps$setTrapState(TrapState state);
+
+    /**
+     * @return the index of the trap in the config trap list, or -1 if none.
+     */
+    int moretraps$getTrapIndex();
+
+    void moretraps$setTrapIndex(int index);
+
+    /**
+     * @return the {@link CompiledTrap#key} of the assigned trap, or 0 if none.
+     */
+    int moretraps$getTrapKey();
+
+    void moretraps$setTrapKey(int key);
+
+    /**
+     * Assigns the specified trap to the mob, so that later lookups return the
+     * same trap rather than picking again.
+     */
+    default void moretraps$setTrap(CompiledTrap trap) {
+        moretraps$setTrapIndex(trap.index);
+        moretraps$setTrapKey(trap.key);
+    }
+
+    /**
+     * @return the reason the mob was spawned, or {@code null} if unknown. Set
+     * when the mob is finalized, before it is added to the level. Not
+     * persisted.
+     */
+    @Nullable MobSpawnType moretraps$getSpawnType();
+
+    void moretraps$setSpawnType(@Nullable MobSpawnType spawnType);
+
+    /**
+     * @return the mob's entry in its level's {@link ArmedTraps}, or
+     * {@code null} if not armed. Not persisted.
+     */
+    @Nullable ArmedTraps.Entry moretraps$getArmedEntry();
+
+    void moretraps$setArmedEntry(@Nullable ArmedTraps.Entry entry);
+
+    default boolean moretraps$isArmed() {
+        return moretraps$getArmedEntry() != null;
+    }
+
+    /**
+     * @return the mob's entry in its level's {@link TrapSpawns}, or
+     * {@code null} if not tracked. Not persisted.
+     */
+    @Nullable TrapSpawns.Entry moretraps$getSpawnEntry();
+
+    void moretraps$setSpawnEntry(@Nullable TrapSpawns.Entry entry);
+
+    static TrapMob of(Mob mob) {
+        return (TrapMob)mob;
+    }
+}
@@ -0,0 +1,47 @@
+/*
+ * Copyright 2024 TerminalMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dev.terminalmc.moretraps.entity;
+
+/**
+ * Trap role of a {@link net.minecraft.world.entity.Mob}, persisted by ordinal.
+ */
+public enum TrapState {
+    /**
+     * Not part of a trap.
+     */
+    NONE,
+    /**
+     * Armed trap source, triggers when a player comes within range.
+     */
+    SOURCE,
+    /**
+     * Spawned by a triggered trap, or a source that has already triggered.
+     */
+    SPAWN,
+    /**
+     * Trap source candidate in lazy mode, the chance roll is deferred until a
+     * player first comes within range. Not persisted, so a candidate unloaded
+     * before then stops being one.
+     */
+    PENDING;
+
+    private static final TrapState[] VALUES = values();
+
+    public static TrapState byId(int id) {
+        return id >= 0 && id < VALUES.length ? VALUES[id] : NONE;
+    }
+}
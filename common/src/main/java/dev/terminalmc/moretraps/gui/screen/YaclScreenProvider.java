@@ -29,7 +29,9 @@ import net.minecraft.client.gui.screens.Screen;
 import net.minecraft.core.registries.BuiltInRegistries;
 import net.minecraft.resources.ResourceLocation;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
 
 import static dev.terminalmc.moretraps.util.Localization.localized;
 
@@ -84,6 +86,18 @@ public class YaclScreenProvider {
                         .step(1F))
                 .build());
 
+        general.option(Option.<Integer>createBuilder()
+                .name(localized("option", "general.triggerCheckInterval"))
+                .description(OptionDescription.of(
+                        localized("option", "general.triggerCheckInterval.tooltip")))
+                .binding(Config.Options.defaultTriggerCheckInterval,
+                        () -> options.triggerCheckInterval,
+                        val -> options.triggerCheckInterval = val)
+                .controller(option -> IntegerSliderControllerBuilder.create(option)
+                        .range(1, 20)
+                        .step(1))
+                .build());
+
         general.option(Option.<Boolean>createBuilder()
                 .name(localized("option", "general.allowInstant"))
                 .description((val) -> OptionDescription.of(
@@ -96,6 +110,84 @@ public class YaclScreenProvider {
                         .yesNoFormatter())
                 .build());
 
+        general.option(Option.<Boolean>createBuilder()
+                .name(localized("option", "general.lazyRoll"))
+                .description((val) -> OptionDescription.of(
+                        localized("option", "general.lazyRoll.tooltip")))
+                .binding(Config.Options.defaultLazyRoll,
+                        () -> options.lazyRoll,
+                        val -> options.lazyRoll = val)
+                .controller(option -> BooleanControllerBuilder.create(option)
+                        .coloured(true)
+                        .yesNoFormatter())
+                .build());
+
+        general.option(Option.<String>createBuilder()
+                .name(localized("option", "general.allowedSpawnTypes"))
+                .description(OptionDescription.of(
+                        localized("option", "general.allowedSpawnTypes.tooltip")))
+                .binding(String.join(", ", Config.Options.defaultAllowedSpawnTypes),
+                        () -> String.join(", ", options.allowedSpawnTypes),
+                        val -> options.allowedSpawnTypes = splitList(val))
+                .controller(StringControllerBuilder::create)
+                .build());
+
+        general.option(Option.<String>createBuilder()
+                .name(localized("option", "general.deniedSpawnTypes"))
+                .description(OptionDescription.of(
+                        localized("option", "general.deniedSpawnTypes.tooltip")))
+                .binding(String.join(", ", Config.Options.defaultDeniedSpawnTypes),
+                        () -> String.join(", ", options.deniedSpawnTypes),
+                        val -> options.deniedSpawnTypes = splitList(val))
+                .controller(StringControllerBuilder::create)
+                .build());
+
+        general.option(Option.<Integer>createBuilder()
+                .name(localized("option", "general.maxSpawnsPerTick"))
+                .description(OptionDescription.of(
+                        localized("option", "general.maxSpawnsPerTick.tooltip")))
+                .binding(Config.Options.defaultMaxSpawnsPerTick,
+                        () -> options.maxSpawnsPerTick,
+                        val -> options.maxSpawnsPerTick = val)
+                .controller(option -> IntegerFieldControllerBuilder.create(option)
+                        .min(0))
+                .build());
+
+        general.option(Option.<Float>createBuilder()
+                .name(localized("option", "general.spawnTimeBudget"))
+                .description(OptionDescription.of(
+                        localized("option", "general.spawnTimeBudget.tooltip")))
+                .binding(Config.Options.defaultSpawnTimeBudget,
+                        () -> options.spawnTimeBudget,
+                        val -> options.spawnTimeBudget = val)
+                .controller(option -> FloatSliderControllerBuilder.create(option)
+                        .range(0F, 50F)
+                        .step(0.5F))
+                .build());
+
+        general.option(Option.<Float>createBuilder()
+                .name(localized("option", "general.prepareRangeMultiplier"))
+                .description(OptionDescription.of(
+                        localized("option", "general.prepareRangeMultiplier.tooltip")))
+                .binding(Config.Options.defaultPrepareRangeMultiplier,
+                        () -> options.prepareRangeMultiplier,
+                        val -> options.prepareRangeMultiplier = val)
+                .controller(option -> FloatSliderControllerBuilder.create(option)
+                        .range(1F, 4F)
+                        .step(0.1F))
+                .build());
+
+        general.option(Option.<Integer>createBuilder()
+                .name(localized("option", "general.maxStagedPerTick"))
+                .description(OptionDescription.of(
+                        localized("option", "general.maxStagedPerTick.tooltip")))
+                .binding(Config.Options.defaultMaxStagedPerTick,
+                        () -> options.maxStagedPerTick,
+                        val -> options.maxStagedPerTick = val)
+                .controller(option -> IntegerFieldControllerBuilder.create(option)
+                        .min(0))
+                .build());
+
         general.option(Option.<Integer>createBuilder()
                 .name(localized("option", "general.effectDuration"))
                 .description(OptionDescription.of(
@@ -119,6 +211,168 @@ public class YaclScreenProvider {
                         .yesNoFormatter())
                 .build());
 
+        general.option(Option.<Config.TriggerEffects>createBuilder()
+                .name(localized("option", "general.triggerEffects"))
+                .description(OptionDescription.of(
+                        localized("option", "general.triggerEffects.tooltip")))
+                .binding(Config.Options.defaultTriggerEffects,
+                        () -> options.triggerEffects,
+                        val -> options.triggerEffects = val)
+                .controller(option -> EnumControllerBuilder.create(option)
+                        .enumClass(Config.TriggerEffects.class)
+                        .formatValue(val -> localized("option",
+                                "general.triggerEffects." + val.name().toLowerCase(Locale.ROOT))))
+                .build());
+
+        ConfigCategory.Builder limits = ConfigCategory.createBuilder()
+                .name(localized("option", "limits"));
+
+        limits.option(Option.<Float>createBuilder()
+                .name(localized("option", "limits.levelTriggersPerMinute"))
+                .description(OptionDescription.of(
+                        localized("option", "limits.levelTriggersPerMinute.tooltip")))
+                .binding(Config.Options.defaultLevelTriggersPerMinute,
+                        () -> options.levelTriggersPerMinute,
+                        val -> options.levelTriggersPerMinute = val)
+                .controller(option -> FloatFieldControllerBuilder.create(option)
+                        .min(0F))
+                .build());
+
+        limits.option(Option.<Integer>createBuilder()
+                .name(localized("option", "limits.levelTriggerBurst"))
+                .description(OptionDescription.of(
+                        localized("option", "limits.levelTriggerBurst.tooltip")))
+                .binding(Config.Options.defaultLevelTriggerBurst,
+                        () -> options.levelTriggerBurst,
+                        val -> options.levelTriggerBurst = val)
+                .controller(option -> IntegerFieldControllerBuilder.create(option)
+                        .min(1))
+                .build());
+
+        limits.option(Option.<Float>createBuilder()
+                .name(localized("option", "limits.levelSpawnsPerMinute"))
+                .description(OptionDescription.of(
+                        localized("option", "limits.levelSpawnsPerMinute.tooltip")))
+                .binding(Config.Options.defaultLevelSpawnsPerMinute,
+                        () -> options.levelSpawnsPerMinute,
+                        val -> options.levelSpawnsPerMinute = val)
+                .controller(option -> FloatFieldControllerBuilder.create(option)
+                        .min(0F))
+                .build());
+
+        limits.option(Option.<Integer>createBuilder()
+                .name(localized("option", "limits.levelSpawnBurst"))
+                .description(OptionDescription.of(
+                        localized("option", "limits.levelSpawnBurst.tooltip")))
+                .binding(Config.Options.defaultLevelSpawnBurst,
+                        () -> options.levelSpawnBurst,
+                        val -> options.levelSpawnBurst = val)
+                .controller(option -> IntegerFieldControllerBuilder.create(option)
+                        .min(1))
+                .build());
+
+        limits.option(Option.<Float>createBuilder()
+                .name(localized("option", "limits.playerTriggersPerMinute"))
+                .description(OptionDescription.of(
+                        localized("option", "limits.playerTriggersPerMinute.tooltip")))
+                .binding(Config.Options.defaultPlayerTriggersPerMinute,
+                        () -> options.playerTriggersPerMinute,
+                        val -> options.playerTriggersPerMinute = val)
+                .controller(option -> FloatFieldControllerBuilder.create(option)
+                        .min(0F))
+                .build());
+
+        limits.option(Option.<Integer>createBuilder()
+                .name(localized("option", "limits.playerTriggerBurst"))
+                .description(OptionDescription.of(
+                        localized("option", "limits.playerTriggerBurst.tooltip")))
+                .binding(Config.Options.defaultPlayerTriggerBurst,
+                        () -> options.playerTriggerBurst,
+                        val -> options.playerTriggerBurst = val)
+                .controller(option -> IntegerFieldControllerBuilder.create(option)
+                        .min(1))
+                .build());
+
+        limits.option(Option.<Config.RateLimitPolicy>createBuilder()
+                .name(localized("option", "limits.rateLimitPolicy"))
+                .description(OptionDescription.of(
+                        localized("option", "limits.rateLimitPolicy.tooltip")))
+                .binding(Config.Options.defaultRateLimitPolicy,
+                        () -> options.rateLimitPolicy,
+                        val -> options.rateLimitPolicy = val)
+                .controller(option -> EnumControllerBuilder.create(option)
+                        .enumClass(Config.RateLimitPolicy.class)
+                        .formatValue(val -> localized("option",
+                                "limits.rateLimitPolicy." + val.name().toLowerCase(Locale.ROOT))))
+                .build());
+
+        limits.option(Option.<Integer>createBuilder()
+                .name(localized("option", "limits.churnSpawnsPerMinute"))
+                .description(OptionDescription.of(
+                        localized("option", "limits.churnSpawnsPerMinute.tooltip")))
+                .binding(Config.Options.defaultChurnSpawnsPerMinute,
+                        () -> options.churnSpawnsPerMinute,
+                        val -> options.churnSpawnsPerMinute = val)
+                .controller(option -> IntegerFieldControllerBuilder.create(option)
+                        .min(0))
+                .build());
+
+        limits.option(Option.<Integer>createBuilder()
+                .name(localized("option", "limits.chunkSpawnCap"))
+                .description(OptionDescription.of(
+                        localized("option", "limits.chunkSpawnCap.tooltip")))
+                .binding(Config.Options.defaultChunkSpawnCap,
+                        () -> options.chunkSpawnCap,
+                        val -> options.chunkSpawnCap = val)
+                .controller(option -> IntegerFieldControllerBuilder.create(option)
+                        .min(0))
+                .build());
+
+        limits.option(Option.<Integer>createBuilder()
+                .name(localized("option", "limits.levelSpawnCap"))
+                .description(OptionDescription.of(
+                        localized("option", "limits.levelSpawnCap.tooltip")))
+                .binding(Config.Options.defaultLevelSpawnCap,
+                        () -> options.levelSpawnCap,
+                        val -> options.levelSpawnCap = val)
+                .controller(option -> IntegerFieldControllerBuilder.create(option)
+                        .min(0))
+                .build());
+
+        limits.option(Option.<Integer>createBuilder()
+                .name(localized("option", "limits.idleDespawnTime"))
+                .description(OptionDescription.of(
+                        localized("option", "limits.idleDespawnTime.tooltip")))
+                .binding(Config.Options.defaultIdleDespawnTime,
+                        () -> options.idleDespawnTime,
+                        val -> options.idleDespawnTime = val)
+                .controller(option -> IntegerFieldControllerBuilder.create(option)
+                        .min(0))
+                .build());
+
+        limits.option(Option.<Float>createBuilder()
+                .name(localized("option", "limits.idleDespawnRange"))
+                .description(OptionDescription.of(
+                        localized("option", "limits.idleDespawnRange.tooltip")))
+                .binding(Config.Options.defaultIdleDespawnRange,
+                        () -> options.idleDespawnRange,
+                        val -> options.idleDespawnRange = val)
+                .controller(option -> FloatSliderControllerBuilder.create(option)
+                        .range(16F, 256F)
+                        .step(1F))
+                .build());
+
+        limits.option(Option.<Integer>createBuilder()
+                .name(localized("option", "limits.idleChecksPerTick"))
+                .description(OptionDescription.of(
+                        localized("option", "limits.idleChecksPerTick.tooltip")))
+                .binding(Config.Options.defaultIdleChecksPerTick,
+                        () -> options.idleChecksPerTick,
+                        val -> options.idleChecksPerTick = val)
+                .controller(option -> IntegerFieldControllerBuilder.create(option)
+                        .min(1))
+                .build());
+
         ConfigCategory.Builder traps = ConfigCategory.createBuilder()
                 .name(localized("option", "traps"));
 
@@ -142,7 +396,7 @@ public class YaclScreenProvider {
                             val -> trap.sourceId = val)
                     .controller(option -> DropdownStringControllerBuilder.create(option)
                             .values(entities)
-                            .allowAnyValue(false)
+                            .allowAnyValue(true)
                             .allowEmptyValue(true))
                     .build());
 
@@ -155,7 +409,7 @@ public class YaclScreenProvider {
                             val -> trap.spawnId = val)
                     .controller(option -> DropdownStringControllerBuilder.create(option)
                             .values(entities)
-                            .allowAnyValue(false)
+                            .allowAnyValue(true)
                             .allowEmptyValue(true))
                     .build());
 
@@ -168,7 +422,7 @@ public class YaclScreenProvider {
                             val -> trap.passengerId = val)
                     .controller(option -> DropdownStringControllerBuilder.create(option)
                             .values(entities)
-                            .allowAnyValue(false)
+                            .allowAnyValue(true)
                             .allowEmptyValue(true))
                     .build());
 
@@ -208,6 +462,17 @@ public class YaclScreenProvider {
                             .step(0.1F))
                     .build());
 
+            trapGroup.option(Option.<Float>createBuilder()
+                    .name(localized("option", "trapGroup.weight"))
+                    .description(OptionDescription.of(
+                            localized("option", "trapGroup.weight.tooltip")))
+                    .binding(Trap.defaultWeight,
+                            () -> trap.weight,
+                            val -> trap.weight = val)
+                    .controller(option -> FloatFieldControllerBuilder.create(option)
+                            .min(0F))
+                    .build());
+
             trapGroup.option(Option.<Integer>createBuilder()
                     .name(localized("option", "trapGroup.spawnNum"))
                     .description(OptionDescription.of(
@@ -232,6 +497,56 @@ public class YaclScreenProvider {
                             .step(1))
                     .build());
 
+            trapGroup.option(Option.<String>createBuilder()
+                    .name(localized("option", "trapGroup.effectPool"))
+                    .description(OptionDescription.of(
+                            localized("option", "trapGroup.effectPool.tooltip")))
+                    .binding(String.join(", ", Trap.defaultEffectPool),
+                            () -> String.join(", ", trap.effectPool),
+                            val -> trap.effectPool = splitList(val))
+                    .controller(StringControllerBuilder::create)
+                    .build());
+
+            trapGroup.option(Option.<String>createBuilder()
+                    .name(localized("option", "trapGroup.dimensions"))
+                    .description(OptionDescription.of(
+                            localized("option", "trapGroup.dimensions.tooltip")))
+                    .binding(String.join(", ", Trap.defaultDimensions),
+                            () -> String.join(", ", trap.dimensions),
+                            val -> trap.dimensions = splitList(val))
+                    .controller(StringControllerBuilder::create)
+                    .build());
+
+            trapGroup.option(Option.<String>createBuilder()
+                    .name(localized("option", "trapGroup.biomes"))
+                    .description(OptionDescription.of(
+                            localized("option", "trapGroup.biomes.tooltip")))
+                    .binding(String.join(", ", Trap.defaultBiomes),
+                            () -> String.join(", ", trap.biomes),
+                            val -> trap.biomes = splitList(val))
+                    .controller(StringControllerBuilder::create)
+                    .build());
+
+            trapGroup.option(Option.<String>createBuilder()
+                    .name(localized("option", "trapGroup.allowedSpawnTypes"))
+                    .description(OptionDescription.of(
+                            localized("option", "trapGroup.allowedSpawnTypes.tooltip")))
+                    .binding(String.join(", ", Trap.defaultAllowedSpawnTypes),
+                            () -> String.join(", ", trap.allowedSpawnTypes),
+                            val -> trap.allowedSpawnTypes = splitList(val))
+                    .controller(StringControllerBuilder::create)
+                    .build());
+
+            trapGroup.option(Option.<String>createBuilder()
+                    .name(localized("option", "trapGroup.deniedSpawnTypes"))
+                    .description(OptionDescription.of(
+                            localized("option", "trapGroup.deniedSpawnTypes.tooltip")))
+                    .binding(String.join(", ", Trap.defaultDeniedSpawnTypes),
+                            () -> String.join(", ", trap.deniedSpawnTypes),
+                            val -> trap.deniedSpawnTypes = splitList(val))
+                    .controller(StringControllerBuilder::create)
+                    .build());
+
             trapGroup.option(ButtonOption.createBuilder()
                     .name(localized("option", "trapGroup.delete")
                             .withStyle(ChatFormatting.RED))
@@ -255,12 +570,24 @@ public class YaclScreenProvider {
 
         // Assemble
         builder.category(general.build());
+        builder.category(limits.build());
         builder.category(traps.build());
 
         YetAnotherConfigLib yacl = builder.build();
         return yacl.generateScreen(parent);
     }
 
+    /**
+     * @return the non-empty entries of a comma-separated list.
+     */
+    private static List<String> splitList(String list) {
+        List<String> entries = new ArrayList<>();
+        for (String entry : list.split(",")) {
+            if (!entry.isBlank()) entries.add(entry.strip());
+        }
+        return entries;
+    }
+
     /**
      * Creates a new YACL screen and switches to it.
      *
@@ -0,0 +1,483 @@
+/*
+ * Copyright 2024 TerminalMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dev.terminalmc.moretraps.level;
+
+import dev.terminalmc.moretraps.MoreTraps;
+import dev.terminalmc.moretraps.config.CompiledConfig;
+import dev.terminalmc.moretraps.config.CompiledTrap;
+import dev.terminalmc.moretraps.config.Config;
+import dev.terminalmc.moretraps.entity.TrapMob;
+import dev.terminalmc.moretraps.entity.TrapState;
+import dev.terminalmc.moretraps.stats.TrapStats;
+import dev.terminalmc.moretraps.trap.TrapTrigger;
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.objects.Object2LongMap;
+import it.unimi.dsi.fastutil.objects.Object2LongOpenHashMap;
+import it.unimi.dsi.fastutil.objects.ObjectArrayList;
+import net.minecraft.core.SectionPos;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.server.level.ServerPlayer;
+import net.minecraft.util.Mth;
+import net.minecraft.world.entity.Mob;
+import net.minecraft.world.level.ChunkPos;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayDeque;
+import java.util.UUID;
+
+/**
+ * Registry of the armed trap source mobs in a level, indexed by
+ * {@link SectionPos} and evaluated centrally from the server tick.
+ *
+ * <p>Armed mobs are only ever range-checked when a player is close by. Each
+ * player watches the cube of sections that could contain a mob within
+ * activation range of it. When a player crosses into a new section, the mobs
+ * in its watched sections are checked immediately, and the mobs in any newly
+ * watched sections become active. Active mobs are re-checked on a
+ * phase-jittered interval to catch approaches within a single section.
+ * Mobs in unwatched sections cost nothing beyond their index entry, so the
+ * trigger cost scales with player movement rather than armed population.</p>
+ *
+ * <p>Players watch out to the prepare range, which may exceed the activation
+ * range. When a polled mob has a player within prepare range, its
+ * {@link TrapTrigger} is prepared and queued for staging, and its entities are
+ * created a few per tick before the player arrives. Staged entities are
+ * discarded if the mob becomes inactive, or if the config changes before the
+ * trap fires.</p>
+ *
+ * <p>{@link TrapState#PENDING} candidates are not indexed, as there is one for
+ * every spawn of a source type. Instead, while lazy rolling is enabled, each
+ * player queries the level for candidates within activation range once per
+ * check interval, and those that pass their chance roll trigger at once.</p>
+ *
+ * <p>The index is kept in step with the level by the
+ * {@code PersistentEntitySectionManager} hooks, which report section changes
+ * and removals (including unloads) of armed mobs.</p>
+ */
+public class ArmedTraps {
+    private static final long NO_SECTION = Long.MAX_VALUE;
+
+    private int size = 0;
+    private final Long2ObjectOpenHashMap<ObjectArrayList<Entry>> bySection = new Long2ObjectOpenHashMap<>();
+    /**
+     * Number of players watching each section.
+     */
+    private final Long2IntOpenHashMap watched = new Long2IntOpenHashMap();
+    private Object2LongOpenHashMap<UUID> playerSections = createPlayerSections();
+    private Object2LongOpenHashMap<UUID> lastPlayerSections = createPlayerSections();
+    private int watchRadius = -1;
+
+    private final RateLimiter rateLimiter;
+    private final TrapSpawns trapSpawns;
+    private final ObjectArrayList<Mob> triggered = new ObjectArrayList<>();
+    /**
+     * The staged trigger of each mob in {@link #triggered}, if any.
+     */
+    private final ObjectArrayList<TrapTrigger> triggeredStaged = new ObjectArrayList<>();
+    /**
+     * The player that triggered each mob in {@link #triggered}, if known.
+     */
+    private final ObjectArrayList<ServerPlayer> triggeredBy = new ObjectArrayList<>();
+    private ObjectArrayList<Entry>[] buckets = createBuckets(1);
+    private int phase = 0;
+    /**
+     * Entries with a prepared trigger that is not yet fully staged.
+     */
+    private final ArrayDeque<Entry> staging = new ArrayDeque<>();
+
+    public ArmedTraps(RateLimiter rateLimiter, TrapSpawns trapSpawns) {
+        this.rateLimiter = rateLimiter;
+        this.trapSpawns = trapSpawns;
+    }
+
+    /**
+     * Registers a trap source mob.
+     * @return {@code false} if the mob was already armed.
+     */
+    public boolean arm(Mob mob) {
+        TrapMob trapMob = TrapMob.of(mob);
+        if (trapMob.moretraps$isArmed()) return false;
+        Entry entry = new Entry(mob, SectionPos.asLong(mob.blockPosition()));
+        trapMob.moretraps$setArmedEntry(entry);
+        size++;
+        bySection.computeIfAbsent(entry.section, k -> new ObjectArrayList<>()).add(entry);
+        if (watched.containsKey(entry.section)) activate(entry);
+        return true;
+    }
+
+    /**
+     * Unregisters a mob, if armed.
+     */
+    public void disarm(Mob mob) {
+        TrapMob trapMob = TrapMob.of(mob);
+        @Nullable Entry entry = trapMob.moretraps$getArmedEntry();
+        if (entry == null) return;
+        trapMob.moretraps$setArmedEntry(null);
+        size--;
+        entry.removed = true;
+        removeFromSection(entry);
+    }
+
+    /**
+     * Called when an armed mob moves between sections.
+     */
+    public void onMove(Mob mob, long section) {
+        @Nullable Entry entry = TrapMob.of(mob).moretraps$getArmedEntry();
+        if (entry == null || entry.section == section) return;
+        removeFromSection(entry);
+        entry.section = section;
+        bySection.computeIfAbsent(section, k -> new ObjectArrayList<>()).add(entry);
+        if (watched.containsKey(section)) activate(entry);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void tick(ServerLevel level, CompiledConfig config, PlayerGrid players) {
+        if (buckets.length != config.triggerCheckInterval) rebucket(config.triggerCheckInterval);
+        updateWatchers(level, config);
+        pollActive(level, config, players);
+        if (config.lazyRoll) pollPending(level, config);
+
+        // Triggered separately, as triggering adds entities to the level
+        if (!triggered.isEmpty()) {
+            for (int i = 0; i < triggered.size(); i++) {
+                trigger(level, config, triggered.get(i), triggeredBy.get(i), triggeredStaged.get(i));
+            }
+            triggered.clear();
+            triggeredBy.clear();
+            triggeredStaged.clear();
+        }
+
+        stage(config);
+    }
+
+    private void trigger(ServerLevel level, CompiledConfig config, Mob mob,
+                         @Nullable ServerPlayer player, @Nullable TrapTrigger staged) {
+        if (mob.isRemoved() || !MoreTraps.rollPending(config, mob)) return;
+        @Nullable CompiledTrap trap = config.getForSource(mob);
+        if (trap == null) {
+            // The assigned trap was removed from the config
+            TrapMob.of(mob).moretraps$setTrapState(TrapState.NONE);
+            return;
+        }
+        if (staged != null && !staged.isFor(config, trap)) staged = null;
+
+        if (!trapSpawns.hasRoom(config, ChunkPos.asLong(mob.blockPosition()), trap.entityCost)) {
+            reject(config, mob, staged, "Population capped");
+            return;
+        }
+        if (!rateLimiter.tryAdmit(config, level.getGameTime(), player, trap.entityCost)) {
+            reject(config, mob, staged, "Rate limited");
+            return;
+        }
+        TrapStats.triggers.increment();
+        if (staged != null) {
+            staged.fire();
+        } else {
+            TrapTrigger.trigger(config, level, mob, trap);
+        }
+    }
+
+    /**
+     * Handles a trigger refused by a limit, according to the rate limit
+     * policy.
+     */
+    private void reject(CompiledConfig config, Mob mob, @Nullable TrapTrigger staged, String reason) {
+        TrapStats.rejected.increment();
+        if (config.rateLimitPolicy == Config.RateLimitPolicy.DEFER) {
+            arm(mob);
+            // Keep the staged entities for the next attempt
+            @Nullable Entry entry = TrapMob.of(mob).moretraps$getArmedEntry();
+            if (entry != null && staged != null) {
+                entry.staged = staged;
+                staging.add(entry);
+            }
+        } else {
+            TrapMob.of(mob).moretraps$setTrapState(TrapState.NONE);
+        }
+        if (config.debugMode) {
+            MoreTraps.LOG.info("{} trap for {} at {} ({})", reason, mob.getName().getString(),
+                    mob.getOnPos(), config.rateLimitPolicy);
+        }
+    }
+
+    /**
+     * Stages the entities of prepared triggers, up to the per-tick limit.
+     */
+    private void stage(CompiledConfig config) {
+        int budget = config.maxStagedPerTick;
+        while (!staging.isEmpty()) {
+            Entry entry = staging.peek();
+            @Nullable TrapTrigger staged = entry.staged;
+            if (entry.removed || staged == null || staged.isFullyStaged()) {
+                staging.poll();
+                continue;
+            }
+            if (!staged.isFor(config, config.getForSource(entry.mob))) {
+                // Prepared under a previous config
+                entry.staged = null;
+                staging.poll();
+                continue;
+            }
+            if (budget <= 0) break;
+            budget -= Math.max(1, staged.stageNext());
+        }
+    }
+
+    private void prepare(ServerLevel level, CompiledConfig config, Entry entry) {
+        if (entry.staged != null || config.maxStagedPerTick <= 0) return;
+        if (TrapMob.of(entry.mob).moretraps$getTrapState() != TrapState.SOURCE) return;
+        @Nullable CompiledTrap trap = config.getForSource(entry.mob);
+        if (trap == null) return;
+        entry.staged = TrapTrigger.prepare(config, level, entry.mob, trap);
+        staging.add(entry);
+    }
+
+    /**
+     * Tracks player section crossings, updating the watched sections and
+     * immediately checking the armed mobs around each player that moved.
+     */
+    private void updateWatchers(ServerLevel level, CompiledConfig config) {
+        int radius = Mth.floor(Math.max(config.activationRange, config.prepareRange)
+                / SectionPos.SECTION_SIZE) + 1;
+        if (radius != watchRadius) {
+            // Rebuild all watched sections at the new radius
+            for (Object2LongMap.Entry<UUID> player : playerSections.object2LongEntrySet()) {
+                unwatch(player.getLongValue());
+            }
+            playerSections.clear();
+            watchRadius = radius;
+        }
+
+        Object2LongOpenHashMap<UUID> current = lastPlayerSections;
+        current.clear();
+        double rangeSqr = config.activationRange * config.activationRange;
+        for (ServerPlayer player : level.players()) {
+            if (!player.isAlive() || player.isSpectator()) continue;
+            long section = SectionPos.asLong(player.blockPosition());
+            current.put(player.getUUID(), section);
+            long previous = playerSections.removeLong(player.getUUID());
+            if (previous == section) continue;
+
+            unwatch(previous);
+            watch(section);
+            checkAround(player, section, rangeSqr);
+        }
+        // Players that left the level, died or became spectators
+        for (Object2LongMap.Entry<UUID> player : playerSections.object2LongEntrySet()) {
+            unwatch(player.getLongValue());
+        }
+        playerSections.clear();
+        lastPlayerSections = playerSections;
+        playerSections = current;
+    }
+
+    private void watch(long center) {
+        int r = watchRadius;
+        int cx = SectionPos.x(center);
+        int cy = SectionPos.y(center);
+        int cz = SectionPos.z(center);
+        for (int x = cx - r; x <= cx + r; x++) {
+            for (int y = cy - r; y <= cy + r; y++) {
+                for (int z = cz - r; z <= cz + r; z++) {
+                    long key = SectionPos.asLong(x, y, z);
+                    if (watched.addTo(key, 1) == 0) {
+                        ObjectArrayList<Entry> section = bySection.get(key);
+                        if (section != null) {
+                            for (Entry entry : section) activate(entry);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private void unwatch(long center) {
+        if (center == NO_SECTION) return;
+        int r = watchRadius;
+        int cx = SectionPos.x(center);
+        int cy = SectionPos.y(center);
+        int cz = SectionPos.z(center);
+        for (int x = cx - r; x <= cx + r; x++) {
+            for (int y = cy - r; y <= cy + r; y++) {
+                for (int z = cz - r; z <= cz + r; z++) {
+                    long key = SectionPos.asLong(x, y, z);
+                    // Inactive entries are dropped from the poll when next visited
+                    if (watched.addTo(key, -1) <= 1) watched.remove(key);
+                }
+            }
+        }
+    }
+
+    private void checkAround(ServerPlayer player, long center, double rangeSqr) {
+        int r = watchRadius;
+        int cx = SectionPos.x(center);
+        int cy = SectionPos.y(center);
+        int cz = SectionPos.z(center);
+        for (int x = cx - r; x <= cx + r; x++) {
+            for (int y = cy - r; y <= cy + r; y++) {
+                for (int z = cz - r; z <= cz + r; z++) {
+                    ObjectArrayList<Entry> section = bySection.get(SectionPos.asLong(x, y, z));
+                    if (section == null) continue;
+                    TrapStats.proximityChecks.add(section.size());
+                    for (int i = section.size() - 1; i >= 0; i--) {
+                        Entry entry = section.get(i);
+                        if (!entry.mob.isRemoved() && player.distanceToSqr(entry.mob) < rangeSqr) {
+                            addTriggered(entry, player);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private void pollActive(ServerLevel level, CompiledConfig config, PlayerGrid players) {
+        phase = (phase + 1) % buckets.length;
+        ObjectArrayList<Entry> bucket = buckets[phase];
+        double rangeSqr = config.activationRange * config.activationRange;
+        float searchRange = Math.max(config.activationRange, config.prepareRange);
+        TrapStats.proximityChecks.add(bucket.size());
+        for (int i = bucket.size() - 1; i >= 0; i--) {
+            Entry entry = bucket.get(i);
+            if (entry.removed || entry.mob.isRemoved() || !watched.containsKey(entry.section)) {
+                entry.queued = false;
+                entry.staged = null;
+                removeAt(bucket, i);
+            } else {
+                @Nullable ServerPlayer player = players.getNearest(entry.mob.getX(),
+                        entry.mob.getY(), entry.mob.getZ(), searchRange);
+                if (player == null) continue;
+                if (player.distanceToSqr(entry.mob) >= rangeSqr) {
+                    prepare(level, config, entry);
+                    continue;
+                }
+                entry.queued = false;
+                removeAt(bucket, i);
+                addTriggered(entry, player);
+            }
+        }
+    }
+
+    /**
+     * Rolls the {@link TrapState#PENDING} candidates within activation range
+     * of each player, visiting each player once per check interval.
+     */
+    private void pollPending(ServerLevel level, CompiledConfig config) {
+        double range = config.activationRange;
+        double rangeSqr = range * range;
+        for (ServerPlayer player : level.players()) {
+            if (!player.isAlive() || player.isSpectator()) continue;
+            if (Math.floorMod(player.getId(), buckets.length) != phase) continue;
+            for (Mob mob : level.getEntitiesOfClass(Mob.class,
+                    player.getBoundingBox().inflate(range), ArmedTraps::isPending)) {
+                TrapStats.proximityChecks.increment();
+                if (player.distanceToSqr(mob) >= rangeSqr) continue;
+                // Leaves the mob a source or not a candidate, so later
+                // players in the loop skip it
+                if (!MoreTraps.rollPending(config, mob)) continue;
+                triggered.add(mob);
+                triggeredBy.add(player);
+                triggeredStaged.add(null);
+            }
+        }
+    }
+
+    private static boolean isPending(Mob mob) {
+        return TrapMob.of(mob).moretraps$getTrapState() == TrapState.PENDING;
+    }
+
+    private void addTriggered(Entry entry, ServerPlayer player) {
+        @Nullable TrapTrigger staged = entry.staged;
+        entry.staged = null;
+        disarm(entry.mob);
+        triggered.add(entry.mob);
+        triggeredBy.add(player);
+        triggeredStaged.add(staged);
+    }
+
+    private void activate(Entry entry) {
+        if (entry.queued || entry.removed) return;
+        entry.queued = true;
+        buckets[entry.mob.getRandom().nextInt(buckets.length)].add(entry);
+    }
+
+    private void removeFromSection(Entry entry) {
+        ObjectArrayList<Entry> section = bySection.get(entry.section);
+        if (section == null) return;
+        int index = section.indexOf(entry);
+        if (index != -1) removeAt(section, index);
+        if (section.isEmpty()) bySection.remove(entry.section);
+    }
+
+    private static void removeAt(ObjectArrayList<Entry> list, int index) {
+        int last = list.size() - 1;
+        list.set(index, list.get(last));
+        list.remove(last);
+    }
+
+    private void rebucket(int interval) {
+        ObjectArrayList<Entry>[] newBuckets = createBuckets(interval);
+        for (ObjectArrayList<Entry> bucket : buckets) {
+            for (Entry entry : bucket) {
+                newBuckets[entry.mob.getRandom().nextInt(interval)].add(entry);
+            }
+        }
+        buckets = newBuckets;
+        phase = 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ObjectArrayList<Entry>[] createBuckets(int interval) {
+        ObjectArrayList<Entry>[] buckets = new ObjectArrayList[Math.max(1, interval)];
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new ObjectArrayList<>();
+        }
+        return buckets;
+    }
+
+    private static Object2LongOpenHashMap<UUID> createPlayerSections() {
+        Object2LongOpenHashMap<UUID> map = new Object2LongOpenHashMap<>();
+        map.defaultReturnValue(NO_SECTION);
+        return map;
+    }
+
+    /**
+     * Registry entry of an armed mob, held by the mob itself so that armed
+     * checks need no lookup.
+     */
+    public static final class Entry {
+        final Mob mob;
+        long section;
+        /**
+         * Whether the entry is in a poll bucket.
+         */
+        boolean queued;
+        boolean removed;
+        /**
+         * The prepared trigger, if the trap is being staged.
+         */
+        @Nullable TrapTrigger staged;
+
+        Entry(Mob mob, long section) {
+            this.mob = mob;
+            this.section = section;
+        }
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright 2024 TerminalMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.terminalmc.moretraps.level;
+
+import dev.terminalmc.moretraps.config.CompiledConfig;
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
+
+/**
+ * Per-level mob spawn rate per chunk, used to detect farms that churn mobs
+ * through natural spawning.
+ *
+ * <p>Counts spawns in two consecutive one-minute windows, estimating the rate
+ * over the last minute by weighting the previous window by how much of it
+ * still overlaps. Counters for chunks that stop spawning decay away within two
+ * windows. Server thread only.</p>
+ */
+public class ChunkChurn {
+    private static final int WINDOW_TICKS = 1200;
+
+    private Long2IntOpenHashMap current = new Long2IntOpenHashMap();
+    private Long2IntOpenHashMap previous = new Long2IntOpenHashMap();
+    private long windowStart;
+
+    /**
+     * Counts a mob spawn in the specified chunk.
+     * @return {@code true} if the chunk's spawn rate, including this spawn,
+     * exceeds {@link CompiledConfig#churnSpawnsPerMinute}.
+     */
+    public boolean recordSpawn(CompiledConfig config, long chunk, long gameTime) {
+        if (config.churnSpawnsPerMinute <= 0) return false;
+        rotate(gameTime);
+        int count = current.addTo(chunk, 1) + 1;
+        if (count > config.churnSpawnsPerMinute) return true;
+        float overlap = 1F - (float)(gameTime - windowStart) / WINDOW_TICKS;
+        return count + previous.get(chunk) * overlap > config.churnSpawnsPerMinute;
+    }
+
+    private void rotate(long gameTime) {
+        long elapsed = gameTime - windowStart;
+        if (elapsed >= 0 && elapsed < WINDOW_TICKS) return;
+        Long2IntOpenHashMap expired = previous;
+        expired.clear();
+        expired.trim();
+        if (elapsed >= 0 && elapsed < 2 * WINDOW_TICKS) {
+            previous = current;
+            current = expired;
+            windowStart += WINDOW_TICKS;
+        } else {
+            // Idle for over a window, or the game time was changed
+            current.clear();
+            current.trim();
+            windowStart = gameTime;
+        }
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2024 TerminalMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dev.terminalmc.moretraps.level;
+
+import dev.terminalmc.moretraps.config.CompiledConfig;
+import dev.terminalmc.moretraps.stats.TrapStats;
+import dev.terminalmc.moretraps.trap.EffectSampler;
+import dev.terminalmc.moretraps.trap.SpawnQueue;
+import net.minecraft.server.level.ServerLevel;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Per-level trap state, attached to each {@link ServerLevel} by
+ * {@link dev.terminalmc.moretraps.mixin.MixinServerLevel}.
+ */
+public class LevelTrapData {
+    private volatile PlayerGrid players = PlayerGrid.EMPTY;
+    private final RateLimiter rateLimiter = new RateLimiter();
+    private final TrapSpawns trapSpawns = new TrapSpawns();
+    private final ArmedTraps armedTraps = new ArmedTraps(rateLimiter, trapSpawns);
+    private final EffectSampler effectSampler = new EffectSampler();
+    private final SpawnQueue spawnQueue = new SpawnQueue();
+    private final ChunkChurn chunkChurn = new ChunkChurn();
+    private volatile @Nullable TrapTable trapTable;
+
+    public static LevelTrapData of(ServerLevel level) {
+        return ((TrapLevel)level).moretraps$getTrapData();
+    }
+
+    /**
+     * Called once per server tick to refresh per-level state.
+     */
+    public void tick(ServerLevel level, CompiledConfig config) {
+        PlayerGrid players = PlayerGrid.build(level.players());
+        this.players = players;
+        if (config.enabled) {
+            long start = System.nanoTime();
+            armedTraps.tick(level, config, players);
+            TrapStats.armedTickNanos.record(System.nanoTime() - start);
+            trapSpawns.tick(config, players, level.getGameTime());
+        }
+        spawnQueue.drain(config);
+    }
+
+    /**
+     * @return the player positions as of the end of the last server tick.
+     */
+    public PlayerGrid players() {
+        return players;
+    }
+
+    /**
+     * @return the trap table for {@code level}, rebuilt if {@code config} is
+     * not the snapshot it was built from. May be called from world generation
+     * threads; concurrent rebuilds produce equal tables, so the race is
+     * benign.
+     */
+    public TrapTable trapTable(CompiledConfig config, ServerLevel level) {
+        @Nullable TrapTable table = trapTable;
+        if (table == null || table.config != config) {
+            table = new TrapTable(config, level);
+            trapTable = table;
+        }
+        return table;
+    }
+
+    public ArmedTraps armedTraps() {
+        return armedTraps;
+    }
+
+    public TrapSpawns trapSpawns() {
+        return trapSpawns;
+    }
+
+    public EffectSampler effectSampler() {
+        return effectSampler;
+    }
+
+    public SpawnQueue spawnQueue() {
+        return spawnQueue;
+    }
+
+    public ChunkChurn chunkChurn() {
+        return chunkChurn;
+    }
+}
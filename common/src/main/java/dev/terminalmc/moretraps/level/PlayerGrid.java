@@ -0,0 +1,181 @@
+/*
+ * Copyright 2024 TerminalMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dev.terminalmc.moretraps.level;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.objects.ObjectArrayList;
+import net.minecraft.server.level.ServerPlayer;
+import net.minecraft.util.Mth;
+import net.minecraft.world.level.ChunkPos;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.List;
+
+/**
+ * Immutable spatial index of alive, non-spectator player positions in a
+ * level, bucketed by chunk column.
+ *
+ * <p>Replaces {@link net.minecraft.world.level.EntityGetter#hasNearbyAlivePlayer}
+ * for trap range checks, which otherwise scan the level's full player list.
+ * A new grid is built once per tick and published as a whole, so positions
+ * may be read from any thread. The player references themselves should only
+ * be used on the server thread.</p>
+ */
+public final class PlayerGrid {
+    public static final PlayerGrid EMPTY = new PlayerGrid(new Long2ObjectOpenHashMap<>(0));
+
+    /**
+     * Cells keyed by {@link ChunkPos#asLong}.
+     */
+    private final Long2ObjectOpenHashMap<Cell> cells;
+    /**
+     * Chunk bounds of all cells, for rejecting far positions without a
+     * lookup.
+     */
+    private final int minChunkX;
+    private final int maxChunkX;
+    private final int minChunkZ;
+    private final int maxChunkZ;
+
+    private PlayerGrid(Long2ObjectOpenHashMap<Cell> cells) {
+        this.cells = cells;
+        int minX = Integer.MAX_VALUE;
+        int maxX = Integer.MIN_VALUE;
+        int minZ = Integer.MAX_VALUE;
+        int maxZ = Integer.MIN_VALUE;
+        for (long key : cells.keySet()) {
+            minX = Math.min(minX, ChunkPos.getX(key));
+            maxX = Math.max(maxX, ChunkPos.getX(key));
+            minZ = Math.min(minZ, ChunkPos.getZ(key));
+            maxZ = Math.max(maxZ, ChunkPos.getZ(key));
+        }
+        this.minChunkX = minX;
+        this.maxChunkX = maxX;
+        this.minChunkZ = minZ;
+        this.maxChunkZ = maxZ;
+    }
+
+    public static PlayerGrid build(List<ServerPlayer> players) {
+        if (players.isEmpty()) return EMPTY;
+        Long2ObjectOpenHashMap<ObjectArrayList<ServerPlayer>> lists = new Long2ObjectOpenHashMap<>();
+        for (ServerPlayer player : players) {
+            if (!player.isAlive() || player.isSpectator()) continue;
+            long key = ChunkPos.asLong(
+                    Mth.floor(player.getX()) >> 4, Mth.floor(player.getZ()) >> 4);
+            lists.computeIfAbsent(key, k -> new ObjectArrayList<>(1)).add(player);
+        }
+        if (lists.isEmpty()) return EMPTY;
+        Long2ObjectOpenHashMap<Cell> cells = new Long2ObjectOpenHashMap<>(lists.size());
+        for (Long2ObjectMap.Entry<ObjectArrayList<ServerPlayer>> entry : lists.long2ObjectEntrySet()) {
+            cells.put(entry.getLongKey(), new Cell(entry.getValue()));
+        }
+        return new PlayerGrid(cells);
+    }
+
+    public boolean isEmpty() {
+        return cells.isEmpty();
+    }
+
+    /**
+     * Equivalent to {@link net.minecraft.world.level.EntityGetter#hasNearbyAlivePlayer}
+     * but only visits the chunk columns overlapping the range.
+     */
+    public boolean hasPlayerWithin(double x, double y, double z, double range) {
+        if (cells.isEmpty()) return false;
+        double rangeSqr = range * range;
+        int minX = Mth.floor(x - range) >> 4;
+        int maxX = Mth.floor(x + range) >> 4;
+        int minZ = Mth.floor(z - range) >> 4;
+        int maxZ = Mth.floor(z + range) >> 4;
+        // Far from every player, as when pre-generating chunks
+        if (maxX < minChunkX || minX > maxChunkX || maxZ < minChunkZ || minZ > maxChunkZ) return false;
+        for (int cx = minX; cx <= maxX; cx++) {
+            for (int cz = minZ; cz <= maxZ; cz++) {
+                Cell cell = cells.get(ChunkPos.asLong(cx, cz));
+                if (cell != null && cell.nearest(x, y, z, rangeSqr) != -1) return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return the nearest player within range, or {@code null} if none.
+     */
+    public @Nullable ServerPlayer getNearest(double x, double y, double z, double range) {
+        if (cells.isEmpty()) return null;
+        @Nullable ServerPlayer nearest = null;
+        double nearestSqr = range * range;
+        int minX = Mth.floor(x - range) >> 4;
+        int maxX = Mth.floor(x + range) >> 4;
+        int minZ = Mth.floor(z - range) >> 4;
+        int maxZ = Mth.floor(z + range) >> 4;
+        for (int cx = minX; cx <= maxX; cx++) {
+            for (int cz = minZ; cz <= maxZ; cz++) {
+                Cell cell = cells.get(ChunkPos.asLong(cx, cz));
+                if (cell == null) continue;
+                int i = cell.nearest(x, y, z, nearestSqr);
+                if (i != -1) {
+                    nearest = cell.players[i];
+                    nearestSqr = cell.distanceSqr(i, x, y, z);
+                }
+            }
+        }
+        return nearest;
+    }
+
+    private static final class Cell {
+        /**
+         * Packed {@code x, y, z} triples of player positions.
+         */
+        final double[] positions;
+        final ServerPlayer[] players;
+
+        Cell(List<ServerPlayer> players) {
+            this.players = players.toArray(ServerPlayer[]::new);
+            this.positions = new double[this.players.length * 3];
+            for (int i = 0; i < this.players.length; i++) {
+                positions[i * 3] = this.players[i].getX();
+                positions[i * 3 + 1] = this.players[i].getY();
+                positions[i * 3 + 2] = this.players[i].getZ();
+            }
+        }
+
+        double distanceSqr(int index, double x, double y, double z) {
+            double dx = positions[index * 3] - x;
+            double dy = positions[index * 3 + 1] - y;
+            double dz = positions[index * 3 + 2] - z;
+            return dx * dx + dy * dy + dz * dz;
+        }
+
+        /**
+         * @return the index of the nearest player closer than the range, or
+         * -1 if none.
+         */
+        int nearest(double x, double y, double z, double rangeSqr) {
+            int nearest = -1;
+            for (int i = 0; i < players.length; i++) {
+                double distanceSqr = distanceSqr(i, x, y, z);
+                if (distanceSqr < rangeSqr) {
+                    nearest = i;
+                    rangeSqr = distanceSqr;
+                }
+            }
+            return nearest;
+        }
+    }
+}
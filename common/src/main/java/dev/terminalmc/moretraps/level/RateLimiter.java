@@ -0,0 +1,96 @@
+/*
+ * Copyright 2024 TerminalMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dev.terminalmc.moretraps.level;
+
+import dev.terminalmc.moretraps.config.CompiledConfig;
+import dev.terminalmc.moretraps.util.TokenBucket;
+import it.unimi.dsi.fastutil.objects.Object2ObjectOpenHashMap;
+import net.minecraft.server.level.ServerPlayer;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.UUID;
+
+/**
+ * Per-level admission control for trap triggers, using token buckets for the
+ * level's triggers, the level's spawned entities and each player's triggers.
+ * A trigger is only admitted if every applicable bucket can cover it.
+ */
+public class RateLimiter {
+    private static final int PLAYER_CLEANUP_INTERVAL = 1200;
+
+    private @Nullable TokenBucket triggers;
+    private @Nullable TokenBucket spawns;
+    private final Object2ObjectOpenHashMap<UUID, TokenBucket> players = new Object2ObjectOpenHashMap<>();
+    private long lastCleanup = 0;
+
+    /**
+     * Consumes tokens for a trigger if all limits allow it.
+     * @param player the player that triggered the trap, if known.
+     * @param entities the maximum number of entities the trigger will spawn.
+     * @return {@code true} if the trigger is admitted.
+     */
+    public boolean tryAdmit(CompiledConfig config, long now, @Nullable ServerPlayer player, int entities) {
+        CompiledConfig.RateLimit triggerLimit = config.levelTriggerLimit;
+        CompiledConfig.RateLimit spawnLimit = config.levelSpawnLimit;
+        CompiledConfig.RateLimit playerLimit = config.playerTriggerLimit;
+
+        @Nullable TokenBucket triggerBucket = null;
+        if (triggerLimit.enabled()) {
+            if (triggers == null) triggers = new TokenBucket(triggerLimit.capacity(), now);
+            triggerBucket = triggers;
+            triggerBucket.refill(triggerLimit.perTick(), triggerLimit.capacity(), now);
+            if (!triggerBucket.has(1)) return false;
+        }
+
+        @Nullable TokenBucket spawnBucket = null;
+        // A trigger larger than the bucket could never be admitted otherwise
+        double spawnCost = Math.min(entities, spawnLimit.capacity());
+        if (spawnLimit.enabled() && entities > 0) {
+            if (spawns == null) spawns = new TokenBucket(spawnLimit.capacity(), now);
+            spawnBucket = spawns;
+            spawnBucket.refill(spawnLimit.perTick(), spawnLimit.capacity(), now);
+            if (!spawnBucket.has(spawnCost)) return false;
+        }
+
+        @Nullable TokenBucket playerBucket = null;
+        if (playerLimit.enabled() && player != null) {
+            cleanupPlayers(playerLimit, now);
+            playerBucket = players.computeIfAbsent(player.getUUID(),
+                    uuid -> new TokenBucket(playerLimit.capacity(), now));
+            playerBucket.refill(playerLimit.perTick(), playerLimit.capacity(), now);
+            if (!playerBucket.has(1)) return false;
+        }
+
+        if (triggerBucket != null) triggerBucket.take(1);
+        if (spawnBucket != null) spawnBucket.take(spawnCost);
+        if (playerBucket != null) playerBucket.take(1);
+        return true;
+    }
+
+    /**
+     * Drops the buckets of players that have fully recovered, as they are
+     * equivalent to a new bucket.
+     */
+    private void cleanupPlayers(CompiledConfig.RateLimit limit, long now) {
+        if (now - lastCleanup < PLAYER_CLEANUP_INTERVAL) return;
+        lastCleanup = now;
+        players.values().removeIf(bucket -> {
+            bucket.refill(limit.perTick(), limit.capacity(), now);
+            return bucket.isFull(limit.capacity());
+        });
+    }
+}
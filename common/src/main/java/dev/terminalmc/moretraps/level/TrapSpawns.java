@@ -0,0 +1,165 @@
+/*
+ * Copyright 2024 TerminalMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dev.terminalmc.moretraps.level;
+
+import dev.terminalmc.moretraps.MoreTraps;
+import dev.terminalmc.moretraps.config.CompiledConfig;
+import dev.terminalmc.moretraps.entity.TrapMob;
+import dev.terminalmc.moretraps.entity.TrapState;
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
+import it.unimi.dsi.fastutil.objects.ObjectArrayList;
+import net.minecraft.world.entity.Mob;
+import net.minecraft.world.entity.OwnableEntity;
+import net.minecraft.world.entity.animal.horse.AbstractHorse;
+import net.minecraft.world.entity.player.Player;
+import net.minecraft.world.level.ChunkPos;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Registry of the live {@link TrapState#SPAWN} mobs in a level, counted per
+ * chunk for the population caps.
+ *
+ * <p>Mobs are tracked while loaded, via the same
+ * {@code PersistentEntitySectionManager} hooks as {@link ArmedTraps}. A
+ * round-robin sweep visits a budgeted number of them per tick, and discards
+ * those that have been out of range of every player for the configured idle
+ * time. Persistent and named mobs are never discarded.</p>
+ */
+public class TrapSpawns {
+    private final ObjectArrayList<Entry> entries = new ObjectArrayList<>();
+    private final Long2IntOpenHashMap byChunk = new Long2IntOpenHashMap();
+    private int cursor = 0;
+
+    /**
+     * Registers a spent trap mob, if not already tracked.
+     */
+    public void track(Mob mob, long gameTime) {
+        TrapMob trapMob = TrapMob.of(mob);
+        if (trapMob.moretraps$getSpawnEntry() != null) return;
+        Entry entry = new Entry(mob, ChunkPos.asLong(mob.blockPosition()), gameTime);
+        entry.index = entries.size();
+        entries.add(entry);
+        byChunk.addTo(entry.chunk, 1);
+        trapMob.moretraps$setSpawnEntry(entry);
+    }
+
+    /**
+     * Unregisters a mob, if tracked.
+     */
+    public void untrack(Mob mob) {
+        TrapMob trapMob = TrapMob.of(mob);
+        @Nullable Entry entry = trapMob.moretraps$getSpawnEntry();
+        if (entry == null) return;
+        trapMob.moretraps$setSpawnEntry(null);
+        removeChunkCount(entry.chunk);
+        int last = entries.size() - 1;
+        Entry moved = entries.get(last);
+        entries.set(entry.index, moved);
+        moved.index = entry.index;
+        entries.remove(last);
+    }
+
+    /**
+     * Called when a tracked mob moves between sections.
+     */
+    public void onMove(Mob mob) {
+        @Nullable Entry entry = TrapMob.of(mob).moretraps$getSpawnEntry();
+        if (entry == null) return;
+        long chunk = ChunkPos.asLong(mob.blockPosition());
+        if (chunk == entry.chunk) return;
+        removeChunkCount(entry.chunk);
+        byChunk.addTo(chunk, 1);
+        entry.chunk = chunk;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * @return whether the specified number of entities may be spawned in the
+     * specified chunk without exceeding the population caps.
+     */
+    public boolean hasRoom(CompiledConfig config, long chunk, int entities) {
+        if (config.levelSpawnCap > 0 && entries.size() + entities > config.levelSpawnCap) return false;
+        return config.chunkSpawnCap <= 0 || byChunk.get(chunk) + entities <= config.chunkSpawnCap;
+    }
+
+    /**
+     * Visits the next tracked mobs in turn, discarding any that have been
+     * idle for too long.
+     */
+    public void tick(CompiledConfig config, PlayerGrid players, long gameTime) {
+        if (config.idleDespawnTicks <= 0 || entries.isEmpty()) return;
+        int checks = Math.min(config.idleChecksPerTick, entries.size());
+        int discarded = 0;
+        for (int i = 0; i < checks && !entries.isEmpty(); i++) {
+            if (cursor >= entries.size()) cursor = 0;
+            Entry entry = entries.get(cursor);
+            Mob mob = entry.mob;
+            if (players.hasPlayerWithin(mob.getX(), mob.getY(), mob.getZ(), config.idleDespawnRange)) {
+                entry.lastNearPlayer = gameTime;
+            } else if (gameTime - entry.lastNearPlayer >= config.idleDespawnTicks
+                    && canDiscard(mob)) {
+                // Untracked by the removal hook, moving another entry here
+                mob.discard();
+                if (TrapMob.of(mob).moretraps$getSpawnEntry() != null) untrack(mob);
+                discarded++;
+                continue;
+            }
+            cursor++;
+        }
+        if (config.debugMode && discarded > 0) {
+            MoreTraps.LOG.info("Discarded {} idle trap spawns", discarded);
+        }
+    }
+
+    /**
+     * @return whether the mob may be discarded while idle, following vanilla
+     * despawn rules and sparing mobs that players have claimed.
+     */
+    private static boolean canDiscard(Mob mob) {
+        if (mob.isPersistenceRequired() || mob.requiresCustomPersistence() || mob.hasCustomName()) {
+            return false;
+        }
+        if (mob instanceof OwnableEntity ownable && ownable.getOwnerUUID() != null) return false;
+        if (mob instanceof AbstractHorse horse && horse.isTamed()) return false;
+        if (mob.isLeashed() || mob.hasPassenger(passenger -> passenger instanceof Player)) return false;
+        @Nullable Player nearest = mob.level().getNearestPlayer(mob, -1.0);
+        return mob.removeWhenFarAway(nearest == null ? Double.MAX_VALUE : nearest.distanceToSqr(mob));
+    }
+
+    private void removeChunkCount(long chunk) {
+        if (byChunk.addTo(chunk, -1) <= 1) byChunk.remove(chunk);
+    }
+
+    /**
+     * Registry entry of a spent trap mob, held by the mob itself.
+     */
+    public static final class Entry {
+        final Mob mob;
+        long chunk;
+        long lastNearPlayer;
+        int index;
+
+        Entry(Mob mob, long chunk, long lastNearPlayer) {
+            this.mob = mob;
+            this.chunk = chunk;
+            this.lastNearPlayer = lastNearPlayer;
+        }
+    }
+}
@@ -0,0 +1,160 @@
+/*
+ * Copyright 2024 TerminalMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.terminalmc.moretraps.level;
+
+import dev.terminalmc.moretraps.config.CompiledConfig;
+import dev.terminalmc.moretraps.config.CompiledTrap;
+import dev.terminalmc.moretraps.config.TrapGroup;
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.Registry;
+import net.minecraft.core.registries.BuiltInRegistries;
+import net.minecraft.core.registries.Registries;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.entity.EntityType;
+import net.minecraft.world.level.LevelReader;
+import net.minecraft.world.level.biome.Biome;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable lookup table of the traps that apply in one level, with dimension
+ * and biome selectors already resolved. Safe to share between the server
+ * thread and world generation threads.
+ *
+ * <p>If no trap applicable to the level has a biome selector, the table is
+ * keyed by entity type alone and never queries the biome.</p>
+ */
+public final class TrapTable {
+    /**
+     * The snapshot this table was built from.
+     */
+    final CompiledConfig config;
+    private final @Nullable Registry<Biome> biomes;
+    private final int typeCount;
+    /**
+     * Trap groups indexed by {@code biomeId * typeCount + typeId}, or by
+     * {@code typeId} alone if {@link #byBiome} is {@code false}.
+     */
+    private final TrapGroup[] table;
+    private final boolean byBiome;
+
+    TrapTable(CompiledConfig config, ServerLevel level) {
+        this(config, level.dimension().location(),
+                level.registryAccess().registryOrThrow(Registries.BIOME));
+    }
+
+    /**
+     * @param dimension the ID of the level's dimension.
+     * @param biomes the level's biome registry, or {@code null} if there is
+     *               no level, in which case traps with a biome selector never
+     *               apply.
+     */
+    public TrapTable(CompiledConfig config, ResourceLocation dimension,
+                     @Nullable Registry<Biome> biomes) {
+        this.config = config;
+        this.biomes = biomes;
+        this.typeCount = BuiltInRegistries.ENTITY_TYPE.size();
+
+        boolean byBiome = false;
+        List<CompiledTrap> traps = new ArrayList<>();
+        for (CompiledTrap trap : config.traps) {
+            if (!trap.appliesIn(dimension)) continue;
+            if (trap.biomes != null) {
+                if (biomes == null) continue;
+                byBiome = true;
+            }
+            traps.add(trap);
+        }
+        this.byBiome = byBiome;
+
+        // Biomes with the same applicable traps share groups
+        Map<List<CompiledTrap>, TrapGroup> groups = new HashMap<>();
+        if (byBiome) {
+            Registry<Biome> biomes = this.biomes;
+            int biomeCount = biomes.size();
+            this.table = new TrapGroup[biomeCount * typeCount];
+            for (int biomeId = 0; biomeId < biomeCount; biomeId++) {
+                @Nullable ResourceLocation biome = biomes.getKey(biomes.byId(biomeId));
+                List<CompiledTrap> inBiome = new ArrayList<>();
+                for (CompiledTrap trap : traps) {
+                    if (trap.biomes == null || trap.biomes.contains(biome)) inBiome.add(trap);
+                }
+                fill(table, biomeId * typeCount, inBiome, groups);
+            }
+        } else {
+            this.table = new TrapGroup[typeCount];
+            fill(table, 0, traps, groups);
+        }
+    }
+
+    /**
+     * Fills {@code table}, starting at {@code offset}, with the groups of
+     * {@code traps} indexed by source type ID.
+     */
+    private void fill(TrapGroup[] table, int offset, List<CompiledTrap> traps,
+                      Map<List<CompiledTrap>, TrapGroup> groups) {
+        Map<EntityType<?>, List<CompiledTrap>> byType = new LinkedHashMap<>();
+        for (CompiledTrap trap : traps) {
+            for (EntityType<?> type : trap.source.types()) {
+                byType.computeIfAbsent(type, k -> new ArrayList<>()).add(trap);
+            }
+        }
+        for (Map.Entry<EntityType<?>, List<CompiledTrap>> entry : byType.entrySet()) {
+            int typeId = BuiltInRegistries.ENTITY_TYPE.getId(entry.getKey());
+            if (typeId < 0 || typeId >= typeCount) continue;
+            table[offset + typeId] = groups.computeIfAbsent(entry.getValue(), TrapGroup::of);
+        }
+    }
+
+    /**
+     * @return {@code true} if lookups depend on the biome, so callers need
+     * {@link #biomeId}.
+     */
+    public boolean usesBiomes() {
+        return byBiome;
+    }
+
+    /**
+     * @param reader the level, or the world generation region containing
+     *               {@code pos}.
+     * @return the ID of the biome at the specified position, or {@code -1}
+     * if it isn't registered.
+     */
+    public int biomeId(LevelReader reader, BlockPos pos) {
+        return biomes == null ? -1 : biomes.getId(reader.getBiome(pos).value());
+    }
+
+    /**
+     * @param biomeId the {@link #biomeId} of the position, ignored if the
+     *                table doesn't {@link #usesBiomes use biomes}.
+     * @return the traps for the specified source type in the specified
+     * biome, or {@code null} if none apply.
+     */
+    public @Nullable TrapGroup get(EntityType<?> type, int biomeId) {
+        int typeId = BuiltInRegistries.ENTITY_TYPE.getId(type);
+        if (typeId < 0 || typeId >= typeCount) return null;
+        if (!byBiome) return table[typeId];
+        if (biomeId < 0) return null;
+        int slot = biomeId * typeCount + typeId;
+        return slot < table.length ? table[slot] : null;
+    }
+}
@@ -0,0 +1,40 @@
+/*
+ * Copyright 2024 TerminalMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package dev.terminalmc.moretraps.mixin;
+
+import dev.terminalmc.moretraps.entity.TrapMob;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.entity.AgeableMob;
+import net.minecraft.world.entity.MobSpawnType;
+import net.minecraft.world.entity.animal.Animal;
+import org.jetbrains.annotations.Nullable;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+
+@Mixin(Animal.class)
+public class MixinAnimal {
+    /**
+     * Bred offspring are never finalized, so marks the spawn reason here,
+     * before the offspring is added to the level.
+     */
+    @Inject(method = "finalizeSpawnChildFromBreeding", at = @At("HEAD"))
+    private void onFinalizeSpawnChildFromBreeding(ServerLevel level, Animal animal,
+                                                  @Nullable AgeableMob baby, CallbackInfo ci) {
+        if (baby != null) TrapMob.of(baby).moretraps$setSpawnType(MobSpawnType.BREEDING);
+    }
+}
@@ -0,0 +1,168 @@
+/*
+ * Copyright 2024 TerminalMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dev.terminalmc.moretraps.mixin;
+
+import dev.terminalmc.moretraps.MoreTraps;
+import dev.terminalmc.moretraps.entity.TrapMob;
+import dev.terminalmc.moretraps.entity.TrapState;
+import dev.terminalmc.moretraps.level.ArmedTraps;
+import dev.terminalmc.moretraps.level.TrapSpawns;
+import net.minecraft.nbt.CompoundTag;
+import net.minecraft.nbt.Tag;
+import net.minecraft.world.DifficultyInstance;
+import net.minecraft.world.entity.Mob;
+import net.minecraft.world.entity.MobSpawnType;
+import net.minecraft.world.entity.SpawnGroupData;
+import net.minecraft.world.level.ServerLevelAccessor;
+import org.jetbrains.annotations.Nullable;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.Unique;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfoReturnable;
+
+@Mixin(Mob.class)
+public class MixinMob implements TrapMob {
+    @Unique
+    private static final String moretraps$STATE_KEY = MoreTraps.MOD_ID + ":state";
+    @Unique
+    private static final String moretraps$INDEX_KEY = MoreTraps.MOD_ID + ":trap";
+    @Unique
+    private static final String moretraps$TRAP_KEY_KEY = MoreTraps.MOD_ID + ":trap_key";
+
+    @Unique
+    private TrapState moretraps$trapState = TrapState.NONE;
+    @Unique
+    private int moretraps$trapIndex = -1;
+    @Unique
+    private int moretraps$trapKey = 0;
+    @Unique
+    private @Nullable MobSpawnType moretraps$spawnType = null;
+    @Unique
+    private @Nullable ArmedTraps.Entry moretraps$armedEntry = null;
+    @Unique
+    private @Nullable TrapSpawns.Entry moretraps$spawnEntry = null;
+
+    @Override
+    public TrapState moretraps$getTrapState() {
+        return moretraps$trapState;
+    }
+
+    @Override
+    public void moretraps$setTrapState(TrapState state) {
+        moretraps$trapState = state;
+    }
+
+    @Override
+    public int moretraps$getTrapIndex() {
+        return moretraps$trapIndex;
+    }
+
+    @Override
+    public void moretraps$setTrapIndex(int index) {
+        moretraps$trapIndex = index;
+    }
+
+    @Override
+    public int moretraps$getTrapKey() {
+        return moretraps$trapKey;
+    }
+
+    @Override
+    public void moretraps$setTrapKey(int key) {
+        moretraps$trapKey = key;
+    }
+
+    @Override
+    public @Nullable MobSpawnType moretraps$getSpawnType() {
+        return moretraps$spawnType;
+    }
+
+    @Override
+    public void moretraps$setSpawnType(@Nullable MobSpawnType spawnType) {
+        moretraps$spawnType = spawnType;
+    }
+
+    @Override
+    public @Nullable ArmedTraps.Entry moretraps$getArmedEntry() {
+        return moretraps$armedEntry;
+    }
+
+    @Override
+    public void moretraps$setArmedEntry(@Nullable ArmedTraps.Entry entry) {
+        moretraps$armedEntry = entry;
+    }
+
+    @Override
+    public @Nullable TrapSpawns.Entry moretraps$getSpawnEntry() {
+        return moretraps$spawnEntry;
+    }
+
+    @Override
+    public void moretraps$setSpawnEntry(@Nullable TrapSpawns.Entry entry) {
+        moretraps$spawnEntry = entry;
+    }
+
+    /**
+     * Captures the spawn reason for {@link MoreTraps#chanceAddTag}, which runs
+     * when the mob is subsequently added to the level.
+     */
+    @Inject(method = "finalizeSpawn", at = @At("HEAD"))
+    private void onFinalizeSpawn(ServerLevelAccessor level, DifficultyInstance difficulty,
+                                 MobSpawnType spawnType, @Nullable SpawnGroupData spawnGroupData,
+                                 CallbackInfoReturnable<SpawnGroupData> cir) {
+        moretraps$spawnType = spawnType;
+    }
+
+    /**
+     * Persists the trap state, omitting it entirely for non-trap mobs and
+     * {@link TrapState#PENDING} candidates.
+     */
+    @Inject(method = "addAdditionalSaveData", at = @At("TAIL"))
+    private void onAddAdditionalSaveData(CompoundTag tag, CallbackInfo ci) {
+        if (moretraps$trapState == TrapState.NONE || moretraps$trapState == TrapState.PENDING) return;
+        tag.putByte(moretraps$STATE_KEY, (byte)moretraps$trapState.ordinal());
+        if (moretraps$trapIndex != -1) tag.putInt(moretraps$INDEX_KEY, moretraps$trapIndex);
+        if (moretraps$trapKey != 0) tag.putInt(moretraps$TRAP_KEY_KEY, moretraps$trapKey);
+    }
+
+    /**
+     * Reads the trap state, migrating the string tags used by older versions.
+     * Entity tags are read before this is called.
+     */
+    @Inject(method = "readAdditionalSaveData", at = @At("TAIL"))
+    private void onReadAdditionalSaveData(CompoundTag tag, CallbackInfo ci) {
+        if (tag.contains(moretraps$STATE_KEY, Tag.TAG_BYTE)) {
+            moretraps$trapState = TrapState.byId(tag.getByte(moretraps$STATE_KEY));
+            moretraps$trapIndex = tag.contains(moretraps$INDEX_KEY, Tag.TAG_INT)
+                    ? tag.getInt(moretraps$INDEX_KEY) : -1;
+            moretraps$trapKey = tag.contains(moretraps$TRAP_KEY_KEY, Tag.TAG_INT)
+                    ? tag.getInt(moretraps$TRAP_KEY_KEY) : 0;
+        }
+
+        Mob mob = (Mob)(Object)this;
+        if (mob.getTags().isEmpty()) return;
+        boolean legacySource = mob.removeTag(MoreTraps.LEGACY_TRAP_SOURCE_TAG);
+        boolean legacySpawn = mob.removeTag(MoreTraps.LEGACY_TRAP_SPAWN_TAG);
+        if (legacySpawn) {
+            moretraps$trapState = TrapState.SPAWN;
+        } else if (legacySource) {
+            moretraps$trapState = TrapState.SOURCE;
+        }
+    }
+}
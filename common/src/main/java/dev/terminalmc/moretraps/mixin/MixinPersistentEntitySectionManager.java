@@ -17,9 +17,14 @@
 package dev.terminalmc.moretraps.mixin;
 
 import dev.terminalmc.moretraps.MoreTraps;
-import dev.terminalmc.moretraps.config.Config;
-import dev.terminalmc.moretraps.entity.ai.goal.TrapTriggerGoal;
-import dev.terminalmc.moretraps.mixin.accessor.MobAccessor;
+import dev.terminalmc.moretraps.config.CompiledConfig;
+import dev.terminalmc.moretraps.entity.TrapMob;
+import dev.terminalmc.moretraps.entity.TrapState;
+import dev.terminalmc.moretraps.level.ArmedTraps;
+import dev.terminalmc.moretraps.level.LevelTrapData;
+import dev.terminalmc.moretraps.level.TrapSpawns;
+import dev.terminalmc.moretraps.stats.TrapStats;
+import net.minecraft.server.level.ServerLevel;
 import net.minecraft.world.effect.MobEffectInstance;
 import net.minecraft.world.effect.MobEffects;
 import net.minecraft.world.entity.Mob;
@@ -34,23 +39,36 @@ import org.spongepowered.asm.mixin.injection.callback.CallbackInfoReturnable;
 public class MixinPersistentEntitySectionManager<T extends EntityAccess> {
     /**
      * Works with {@link MixinWorldGenRegion} and {@link MixinServerLevel} by
-     * reading tags of added entities and setting a {@link TrapTriggerGoal}
-     * where the trap source tag is found.
+     * reading the {@link TrapState} of added entities, registering trap
+     * sources with the level's {@link ArmedTraps} and spent trap mobs with its
+     * {@link TrapSpawns}. Runs only once the entity has been accepted, as a
+     * rejected add (such as a duplicate UUID) is never reported as removed,
+     * and would leave its entry and population count behind.
      */
-    @Inject(method = "addEntity", at = @At("HEAD"))
+    @Inject(method = "addEntity", at = @At("RETURN"))
     private void onAddEntity(T entity, boolean existing, CallbackInfoReturnable<Boolean> cir) {
-        if (!Config.get().options.enabled) return;
+        if (!cir.getReturnValueZ()) return;
         if (!(entity instanceof Mob mob)) return;
-        if (mob.getTags().contains(MoreTraps.TRAP_SPAWN_TAG)) return;
-
-        if (((MobAccessor)mob).getGoalSelector().getAvailableGoals().stream()
-                .anyMatch(goal -> goal.getGoal() instanceof TrapTriggerGoal)) return;
+        // Field reads only, no goal or registry work for non-trap mobs
+        TrapMob trapMob = TrapMob.of(mob);
+        TrapState state = trapMob.moretraps$getTrapState();
+        if (state == TrapState.SPAWN) {
+            if (mob.level() instanceof ServerLevel level) {
+                LevelTrapData.of(level).trapSpawns().track(mob, level.getGameTime());
+            }
+            return;
+        }
+        if (state != TrapState.SOURCE) return;
+        if (trapMob.moretraps$isArmed()) return;
+        CompiledConfig config = CompiledConfig.get();
+        if (!config.enabled) return;
+        if (!(mob.level() instanceof ServerLevel level)) return;
 
-        if (mob.getTags().contains(MoreTraps.TRAP_SOURCE_TAG)) {
-            ((MobAccessor)mob).getGoalSelector().addGoal(1, new TrapTriggerGoal(mob));
-            if (Config.get().options.debugMode) {
+        if (LevelTrapData.of(level).armedTraps().arm(mob)) {
+            TrapStats.armed.increment();
+            if (config.debugMode) {
                 mob.addEffect(new MobEffectInstance(MobEffects.GLOWING, 2400, 0, false, false));
-                MoreTraps.LOG.info("Added TrapTriggerGoal to tagged {} at {}",
+                MoreTraps.LOG.info("Armed trap source {} at {}",
                         mob.getName().getString(), mob.getOnPos());
             }
         }
@@ -0,0 +1,80 @@
+/*
+ * Copyright 2024 TerminalMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dev.terminalmc.moretraps.mixin;
+
+import dev.terminalmc.moretraps.entity.TrapMob;
+import dev.terminalmc.moretraps.level.ArmedTraps;
+import dev.terminalmc.moretraps.level.LevelTrapData;
+import dev.terminalmc.moretraps.level.TrapSpawns;
+import net.minecraft.core.SectionPos;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.entity.Entity;
+import net.minecraft.world.entity.Mob;
+import net.minecraft.world.level.entity.EntityAccess;
+import org.objectweb.asm.Opcodes;
+import org.spongepowered.asm.mixin.Final;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.Shadow;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+
+@Mixin(targets = "net.minecraft.world.level.entity.PersistentEntitySectionManager$Callback")
+public class MixinPersistentEntitySectionManagerCallback {
+    @Shadow
+    @Final
+    private EntityAccess entity;
+
+    /**
+     * Keeps the {@link ArmedTraps} section index and {@link TrapSpawns} chunk
+     * counts in step with trap mobs as they move between sections.
+     */
+    @Inject(
+            method = "onMove",
+            at = @At(
+                    value = "FIELD",
+                    target = "Lnet/minecraft/world/level/entity/PersistentEntitySectionManager$Callback;currentSectionKey:J",
+                    opcode = Opcodes.PUTFIELD
+            )
+    )
+    private void onSectionChange(CallbackInfo ci) {
+        if (!(entity instanceof Mob mob)) return;
+        TrapMob trapMob = TrapMob.of(mob);
+        if (trapMob.moretraps$isArmed() && mob.level() instanceof ServerLevel level) {
+            LevelTrapData.of(level).armedTraps().onMove(mob, SectionPos.asLong(mob.blockPosition()));
+        } else if (trapMob.moretraps$getSpawnEntry() != null && mob.level() instanceof ServerLevel level) {
+            LevelTrapData.of(level).trapSpawns().onMove(mob);
+        }
+    }
+
+    /**
+     * Removes trap mobs from the {@link ArmedTraps} index and
+     * {@link TrapSpawns} when they are killed, discarded, unloaded or change
+     * dimension.
+     */
+    @Inject(method = "onRemove", at = @At("HEAD"))
+    private void onRemove(Entity.RemovalReason reason, CallbackInfo ci) {
+        if (!(entity instanceof Mob mob)) return;
+        TrapMob trapMob = TrapMob.of(mob);
+        if (trapMob.moretraps$isArmed() && mob.level() instanceof ServerLevel level) {
+            LevelTrapData.of(level).armedTraps().disarm(mob);
+        }
+        if (trapMob.moretraps$getSpawnEntry() != null && mob.level() instanceof ServerLevel level) {
+            LevelTrapData.of(level).trapSpawns().untrack(mob);
+        }
+    }
+}
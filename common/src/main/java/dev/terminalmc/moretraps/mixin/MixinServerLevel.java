@@ -17,18 +17,29 @@
 package dev.terminalmc.moretraps.mixin;
 
 import dev.terminalmc.moretraps.MoreTraps;
+import dev.terminalmc.moretraps.level.LevelTrapData;
+import dev.terminalmc.moretraps.level.TrapLevel;
 import net.minecraft.server.level.ServerLevel;
 import net.minecraft.world.entity.Entity;
 import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.Unique;
 import org.spongepowered.asm.mixin.injection.At;
 import org.spongepowered.asm.mixin.injection.Inject;
 import org.spongepowered.asm.mixin.injection.callback.CallbackInfoReturnable;
 
 @Mixin(ServerLevel.class)
-public class MixinServerLevel {
+public class MixinServerLevel implements TrapLevel {
+    @Unique
+    private final LevelTrapData moretraps$trapData = new LevelTrapData();
+
+    @Override
+    public LevelTrapData moretraps$getTrapData() {
+        return moretraps$trapData;
+    }
+
     /**
-     * Handles most non-generated mob spawns by applying a tag on entity spawn,
-     * which is subsequently read by
+     * Handles most non-generated mob spawns by marking trap sources on entity
+     * spawn, which is subsequently read by
      * {@link MixinPersistentEntitySectionManager}.
      */
     @Inject(method = "addFreshEntity", at = @At("HEAD"))
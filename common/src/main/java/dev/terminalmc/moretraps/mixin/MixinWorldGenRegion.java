@@ -27,12 +27,13 @@ import org.spongepowered.asm.mixin.injection.callback.CallbackInfoReturnable;
 @Mixin(WorldGenRegion.class)
 public class MixinWorldGenRegion {
     /**
-     * Handles generated entities (including most passive mobs) by applying
-     * a tag on entity creation, which is immediately serialized to NBT, then
-     * subsequently read by {@link MixinPersistentEntitySectionManager}.
+     * Handles generated entities (including most passive mobs) by marking
+     * trap sources on entity creation, which is immediately serialized to NBT,
+     * then subsequently read by {@link MixinPersistentEntitySectionManager}.
+     * Runs on chunk generation threads, so uses the worldgen tagging path.
      */
     @Inject(method = "addFreshEntity", at = @At("HEAD"))
     private void onSpawnEntity(Entity entity, CallbackInfoReturnable<Boolean> cir) {
-        MoreTraps.chanceAddTag(entity);
+        MoreTraps.chanceAddTagWorldGen((WorldGenRegion)(Object)this, entity);
     }
 }
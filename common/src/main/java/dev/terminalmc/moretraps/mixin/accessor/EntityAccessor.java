@@ -16,13 +16,16 @@
 
 package dev.terminalmc.moretraps.mixin.accessor;
 
-import net.minecraft.world.entity.Mob;
-import net.minecraft.world.entity.ai.goal.GoalSelector;
+import net.minecraft.world.entity.Entity;
 import org.spongepowered.asm.mixin.Mixin;
 import org.spongepowered.asm.mixin.gen.Accessor;
 
-@Mixin(Mob.class)
-public interface MobAccessor {
-    @Accessor
-    GoalSelector getGoalSelector();
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Mixin(Entity.class)
+public interface EntityAccessor {
+    @Accessor("ENTITY_COUNTER")
+    static AtomicInteger getEntityCounter() {
+        throw new AssertionError();
+    }
 }
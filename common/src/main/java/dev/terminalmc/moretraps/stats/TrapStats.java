@@ -0,0 +1,118 @@
+/*
+ * Copyright 2024 TerminalMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dev.terminalmc.moretraps.stats;
+
+import dev.terminalmc.moretraps.MoreTraps;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Hot-path counters and latency histograms, reported by the {@code stats}
+ * command.
+ *
+ * <p>All fields are striped adders, which are safe and uncontended to update
+ * from the server and worldgen threads alike. Latencies are in nanoseconds.
+ * </p>
+ */
+public class TrapStats {
+    private static final Path DUMP_PATH = Path.of("config", MoreTraps.MOD_ID + "-stats.txt");
+
+    // Spawn tagging
+    public static final LongAdder tagChecks = new LongAdder();
+    public static final LongAdder churnSuppressed = new LongAdder();
+    public static final LongAdder tagRolls = new LongAdder();
+    public static final LongAdder tagged = new LongAdder();
+    public static final Histogram tagNanos = new Histogram();
+
+    // Arming and proximity
+    public static final LongAdder armed = new LongAdder();
+    public static final LongAdder proximityChecks = new LongAdder();
+    public static final Histogram armedTickNanos = new Histogram();
+
+    // Triggering
+    public static final LongAdder triggers = new LongAdder();
+    public static final LongAdder rejected = new LongAdder();
+    public static final LongAdder spawned = new LongAdder();
+    public static final Histogram spawnsPerTrigger = new Histogram();
+    public static final Histogram spawnDrainNanos = new Histogram();
+
+    private static volatile long startNanos = System.nanoTime();
+
+    public static void reset() {
+        for (LongAdder counter : List.of(tagChecks, churnSuppressed, tagRolls, tagged, armed,
+                proximityChecks, triggers, rejected, spawned)) {
+            counter.reset();
+        }
+        for (Histogram histogram : List.of(tagNanos, armedTickNanos,
+                spawnsPerTrigger, spawnDrainNanos)) {
+            histogram.reset();
+        }
+        startNanos = System.nanoTime();
+    }
+
+    /**
+     * @return a human-readable summary of all stats since the last reset.
+     */
+    public static List<String> report() {
+        double seconds = Math.max(1E-9, (System.nanoTime() - startNanos) / 1E9);
+        List<String> lines = new ArrayList<>();
+        lines.add(String.format(Locale.ROOT, "Stats over %.1f s", seconds));
+        lines.add(counter("Spawn tag candidates", tagChecks, seconds));
+        lines.add(counter("Suppressed in farm chunks", churnSuppressed, seconds));
+        lines.add(counter("Chance rolls", tagRolls, seconds));
+        lines.add(counter("Tagged sources", tagged, seconds));
+        lines.add(latency("Tag check time", tagNanos));
+        lines.add(counter("Armed", armed, seconds));
+        lines.add(counter("Proximity checks", proximityChecks, seconds));
+        lines.add(latency("Trap tick time", armedTickNanos));
+        lines.add(counter("Triggers", triggers, seconds));
+        lines.add(counter("Rejected triggers", rejected, seconds));
+        lines.add(counter("Entities spawned", spawned, seconds));
+        lines.add(String.format(Locale.ROOT, "Spawns per trigger: mean %.1f, p50 %d, p99 %d, max %d",
+                spawnsPerTrigger.mean(), spawnsPerTrigger.percentile(0.5),
+                spawnsPerTrigger.percentile(0.99), spawnsPerTrigger.max()));
+        lines.add(latency("Spawn drain time", spawnDrainNanos));
+        return lines;
+    }
+
+    /**
+     * Writes the report to a text file in the config directory.
+     * @return the path of the file.
+     */
+    public static Path dump() throws IOException {
+        Files.createDirectories(DUMP_PATH.getParent());
+        Files.write(DUMP_PATH, report());
+        return DUMP_PATH;
+    }
+
+    private static String counter(String name, LongAdder counter, double seconds) {
+        long count = counter.sum();
+        return String.format(Locale.ROOT, "%s: %d (%.2f/s)", name, count, count / seconds);
+    }
+
+    private static String latency(String name, Histogram histogram) {
+        return String.format(Locale.ROOT, "%s: n %d, mean %.1f us, p50 %.1f us, p99 %.1f us, max %.1f us",
+                name, histogram.count(), histogram.mean() / 1E3, histogram.percentile(0.5) / 1E3,
+                histogram.percentile(0.99) / 1E3, histogram.max() / 1E3);
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright 2024 TerminalMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dev.terminalmc.moretraps.trap;
+
+import dev.terminalmc.moretraps.MoreTraps;
+import dev.terminalmc.moretraps.util.AliasTable;
+import net.minecraft.core.Holder;
+import net.minecraft.core.registries.BuiltInRegistries;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.world.effect.MobEffect;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Immutable set of status effects that a trap can apply, with optional
+ * weights compiled into an {@link AliasTable}.
+ */
+public final class EffectPool {
+    private final Holder<MobEffect>[] effects;
+    /**
+     * {@code null} if all effects are equally weighted.
+     */
+    private final @Nullable AliasTable weights;
+
+    private EffectPool(Holder<MobEffect>[] effects, @Nullable AliasTable weights) {
+        this.effects = effects;
+        this.weights = weights;
+    }
+
+    /**
+     * @return a uniform pool of all beneficial effects in the registry.
+     */
+    @SuppressWarnings("unchecked")
+    public static EffectPool beneficial() {
+        return new EffectPool(BuiltInRegistries.MOB_EFFECT.holders()
+                .filter(holder -> holder.value().isBeneficial())
+                .toArray(Holder[]::new), null);
+    }
+
+    /**
+     * Parses a pool from entries of the form {@code <effect id>} or
+     * {@code <effect id>=<weight>}, skipping invalid entries.
+     * @return the parsed pool, or {@code fallback} if no entries are valid.
+     */
+    @SuppressWarnings("unchecked")
+    public static EffectPool parse(List<String> entries, EffectPool fallback) {
+        if (entries.isEmpty()) return fallback;
+        List<Holder<MobEffect>> effects = new ArrayList<>(entries.size());
+        float[] weights = new float[entries.size()];
+        boolean weighted = false;
+        for (String entry : entries) {
+            String idString = entry.strip();
+            float weight = 1F;
+            int split = idString.indexOf('=');
+            if (split != -1) {
+                try {
+                    weight = Float.parseFloat(idString.substring(split + 1).strip());
+                } catch (NumberFormatException e) {
+                    weight = -1F;
+                }
+                idString = idString.substring(0, split).strip();
+            }
+            @Nullable ResourceLocation id = ResourceLocation.tryParse(idString);
+            Optional<Holder.Reference<MobEffect>> effect = id == null
+                    ? Optional.empty() : BuiltInRegistries.MOB_EFFECT.getHolder(id);
+            if (effect.isEmpty() || !(weight > 0) || !Float.isFinite(weight)) {
+                MoreTraps.LOG.warn("Ignoring invalid effect pool entry '{}'", entry);
+                continue;
+            }
+            weights[effects.size()] = weight;
+            effects.add(effect.get());
+            if (weight != 1F) weighted = true;
+        }
+        if (effects.isEmpty()) return fallback;
+        float[] validWeights = new float[effects.size()];
+        System.arraycopy(weights, 0, validWeights, 0, validWeights.length);
+        return new EffectPool(effects.toArray(Holder[]::new),
+                weighted ? new AliasTable(validWeights) : null);
+    }
+
+    public int size() {
+        return effects.length;
+    }
+
+    public Holder<MobEffect> get(int index) {
+        return effects[index];
+    }
+
+    public @Nullable AliasTable weights() {
+        return weights;
+    }
+}
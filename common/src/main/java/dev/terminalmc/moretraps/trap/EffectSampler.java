@@ -0,0 +1,141 @@
+/*
+ * Copyright 2024 TerminalMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dev.terminalmc.moretraps.trap;
+
+import dev.terminalmc.moretraps.util.AliasTable;
+import net.minecraft.util.RandomSource;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Arrays;
+
+/**
+ * Reusable scratch state for sampling an {@link EffectPool} without
+ * replacement. Allocates only when a larger pool is first seen.
+ *
+ * <p>Not thread-safe, intended for use on the server thread.</p>
+ */
+public class EffectSampler {
+    private static final int MAX_REJECTIONS = 8;
+
+    /**
+     * A permutation of {@code [0, orderSize)}, partially shuffled in place by
+     * each uniform sample.
+     */
+    private int[] order = new int[0];
+    private int orderSize = 0;
+    /**
+     * Entries equal to {@link #stamp} have been drawn in the current sample.
+     */
+    private int[] stamps = new int[0];
+    private int stamp = 0;
+
+    private @Nullable EffectPool pool;
+    private int drawn;
+
+    /**
+     * Receives each effect selected by {@link #select}. Takes the target as
+     * an argument, so that callers can pass a non-capturing lambda or method
+     * reference that doesn't allocate per call.
+     */
+    @FunctionalInterface
+    public interface Selection<T> {
+        /**
+         * @param target the target passed to {@link #select}.
+         * @param index the index of the effect in the pool.
+         * @param amplifier the amplifier to apply the effect with.
+         */
+        void accept(T target, int index, int amplifier);
+    }
+
+    /**
+     * Selects distinct effects from the pool, each with a random amplifier,
+     * until the total effect levels reach {@code effectNum} or the pool is
+     * exhausted.
+     * @return the number of effects selected.
+     */
+    public <T> int select(EffectPool pool, int effectNum, RandomSource random,
+                          T target, Selection<? super T> selection) {
+        int selected = 0;
+        begin(pool);
+        while (effectNum > 0) {
+            int index = next(random);
+            if (index == -1) break;
+            int amplifier = random.nextInt(effectNum);
+            effectNum -= amplifier + 1;
+            selection.accept(target, index, amplifier);
+            selected++;
+        }
+        return selected;
+    }
+
+    public void begin(EffectPool pool) {
+        this.pool = pool;
+        this.drawn = 0;
+        int size = pool.size();
+        if (pool.weights() == null) {
+            if (orderSize != size) {
+                if (order.length < size) order = new int[size];
+                for (int i = 0; i < size; i++) order[i] = i;
+                orderSize = size;
+            }
+        } else {
+            if (stamps.length < size) {
+                stamps = new int[size];
+                stamp = 0;
+            }
+            if (++stamp == 0) {
+                Arrays.fill(stamps, 0);
+                stamp = 1;
+            }
+        }
+    }
+
+    /**
+     * @return the index of the next effect in the pool, or -1 if all effects
+     * have been drawn.
+     */
+    public int next(RandomSource random) {
+        EffectPool pool = this.pool;
+        if (pool == null || drawn >= pool.size()) return -1;
+        @Nullable AliasTable weights = pool.weights();
+        if (weights == null) {
+            // Partial Fisher-Yates shuffle
+            int j = drawn + random.nextInt(orderSize - drawn);
+            int picked = order[j];
+            order[j] = order[drawn];
+            order[drawn++] = picked;
+            return picked;
+        }
+
+        for (int attempt = 0; attempt < MAX_REJECTIONS; attempt++) {
+            int i = weights.sample(random);
+            if (stamps[i] != stamp) return take(i);
+        }
+        // Mostly drawn, fall back to a uniform pick of the remainder
+        int skip = random.nextInt(pool.size() - drawn);
+        for (int i = 0; i < pool.size(); i++) {
+            if (stamps[i] != stamp && skip-- == 0) return take(i);
+        }
+        return -1;
+    }
+
+    private int take(int index) {
+        stamps[index] = stamp;
+        drawn++;
+        return index;
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright 2024 TerminalMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dev.terminalmc.moretraps.trap;
+
+import dev.terminalmc.moretraps.config.CompiledConfig;
+import dev.terminalmc.moretraps.config.Config;
+import dev.terminalmc.moretraps.stats.TrapStats;
+
+import java.util.ArrayDeque;
+
+/**
+ * Per-level queue of triggered traps with entities left to spawn, drained
+ * from the server tick under the configured entity and time budgets.
+ */
+public class SpawnQueue {
+    private final ArrayDeque<TrapTrigger> queue = new ArrayDeque<>();
+
+    public void add(TrapTrigger trigger) {
+        queue.add(trigger);
+    }
+
+    public int size() {
+        return queue.size();
+    }
+
+    /**
+     * Spawns queued entities in trigger order until either budget is spent.
+     * At least one spawn step is performed per call, so the queue always
+     * makes progress.
+     *
+     * <p>In {@link Config.TriggerEffects#PACKET} mode, the packets of each
+     * trigger's steps are bundled separately, so no unrelated packets are
+     * held back.</p>
+     */
+    public void drain(CompiledConfig config) {
+        if (queue.isEmpty()) return;
+        long start = System.nanoTime();
+        long deadline = config.spawnTimeBudgetNanos > 0
+                ? start + config.spawnTimeBudgetNanos : Long.MAX_VALUE;
+        int budget = config.maxSpawnsPerTick > 0 ? config.maxSpawnsPerTick : Integer.MAX_VALUE;
+        boolean bundle = config.triggerEffects == Config.TriggerEffects.PACKET;
+        int spawned = 0;
+        boolean spent = false;
+        while (!queue.isEmpty() && !spent) {
+            TrapTrigger trigger = queue.peek();
+            if (bundle) TriggerPackets.beginBundle();
+            try {
+                do {
+                    spawned += trigger.spawnNext();
+                    spent = spawned >= budget || System.nanoTime() >= deadline;
+                } while (!spent && !trigger.isDone());
+            } finally {
+                if (bundle) TriggerPackets.endBundle();
+            }
+            if (trigger.isDone()) {
+                queue.poll();
+                TrapStats.spawnsPerTrigger.record(trigger.spawned());
+            }
+        }
+        TrapStats.spawned.add(spawned);
+        TrapStats.spawnDrainNanos.record(System.nanoTime() - start);
+    }
+}
@@ -0,0 +1,343 @@
+/*
+ * Copyright 2024 TerminalMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dev.terminalmc.moretraps.trap;
+
+import dev.terminalmc.moretraps.MoreTraps;
+import dev.terminalmc.moretraps.config.CompiledConfig;
+import dev.terminalmc.moretraps.config.CompiledTrap;
+import dev.terminalmc.moretraps.config.Config;
+import dev.terminalmc.moretraps.config.EntitySelector;
+import dev.terminalmc.moretraps.entity.TrapMob;
+import dev.terminalmc.moretraps.entity.TrapState;
+import dev.terminalmc.moretraps.level.LevelTrapData;
+import dev.terminalmc.moretraps.stats.TrapStats;
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.Holder;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.DifficultyInstance;
+import net.minecraft.world.effect.MobEffect;
+import net.minecraft.world.effect.MobEffectInstance;
+import net.minecraft.world.effect.MobEffects;
+import net.minecraft.world.entity.Entity;
+import net.minecraft.world.entity.EntityType;
+import net.minecraft.world.entity.LightningBolt;
+import net.minecraft.world.entity.Mob;
+import net.minecraft.world.entity.MobSpawnType;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Springs the trap on an armed source mob.
+ *
+ * <p>A trigger may be prepared before it fires, while a player is still
+ * approaching, in which case its entities are created ahead of time in
+ * budgeted steps by {@link #stageNext()}. Staged entities are not finalized
+ * until they are spawned, as finalizing has world side effects such as adding
+ * jockey mounts, so discarding a staged trigger leaves nothing behind. When
+ * the trap fires, the
+ * lightning and source effects are applied immediately, while the adding of
+ * passengers and trap entities is queued on the level's {@link SpawnQueue}
+ * and performed in steps under a per-tick budget. Entities that were not
+ * staged are created as they are spawned. Queued spawns are not persisted,
+ * and are lost if the server stops first.</p>
+ */
+public class TrapTrigger {
+    private final CompiledConfig config;
+    private final CompiledTrap trap;
+    private final ServerLevel world;
+    private final Mob entity;
+    private final EffectSampler effectSampler;
+    private final DifficultyInstance localDiff;
+    private final @Nullable EntitySelector sourcePassengerType;
+    private final @Nullable EntitySelector spawnType;
+    private final @Nullable EntitySelector passengerType;
+    private final int spawnTotal;
+
+    private @Nullable Mob stagedSourcePassenger;
+    private boolean sourcePassengerStaged;
+    private boolean sourcePassengerDone;
+    /**
+     * Staged trap entities, with their passengers already riding.
+     */
+    private final Mob[] staged;
+    private int stagedCount;
+    private int spawnIndex;
+    private int spawned;
+
+    /**
+     * The mob being given effects by {@link #applyEffects}, if any.
+     */
+    private @Nullable Mob effectTarget;
+    private @Nullable StringBuilder effectsBuilder;
+
+    private boolean fired;
+    private double x;
+    private double y;
+    private double z;
+
+    private TrapTrigger(CompiledConfig config, ServerLevel world, Mob entity, CompiledTrap trap) {
+        this.config = config;
+        this.trap = trap;
+        this.world = world;
+        this.entity = entity;
+        this.effectSampler = LevelTrapData.of(world).effectSampler();
+        this.localDiff = world.getCurrentDifficultyAt(entity.blockPosition());
+        this.sourcePassengerType = trap.passengerOnSource ? trap.passenger : null;
+        this.spawnType = trap.invertRiding ? trap.passenger : trap.spawn;
+        this.passengerType = trap.invertRiding ? trap.spawn : trap.passenger;
+        this.spawnTotal = spawnType == null ? 0 : Math.max(0, trap.spawnNum);
+        this.staged = new Mob[spawnTotal];
+        this.sourcePassengerDone = sourcePassengerType == null;
+    }
+
+    /**
+     * Creates a trigger for the source without staging any entities.
+     */
+    public static TrapTrigger prepare(CompiledConfig config, ServerLevel world, Mob entity, CompiledTrap trap) {
+        return new TrapTrigger(config, world, entity, trap);
+    }
+
+    /**
+     * Fires the trap immediately, without any staged entities.
+     */
+    public static void trigger(CompiledConfig config, ServerLevel world, Mob entity, CompiledTrap trap) {
+        prepare(config, world, entity, trap).fire();
+    }
+
+    /**
+     * @return whether this trigger was prepared from the specified config
+     * snapshot and trap, so its staged entities are still valid.
+     */
+    public boolean isFor(CompiledConfig config, CompiledTrap trap) {
+        return this.config == config && this.trap == trap;
+    }
+
+    public boolean isFullyStaged() {
+        return (sourcePassengerType == null || sourcePassengerStaged) && stagedCount >= spawnTotal;
+    }
+
+    /**
+     * Creates the next entity (and passenger) ahead of the trigger, without
+     * finalizing it.
+     * @return the number of entities created.
+     */
+    public int stageNext() {
+        if (fired) return 0;
+        if (sourcePassengerType != null && !sourcePassengerStaged) {
+            sourcePassengerStaged = true;
+            stagedSourcePassenger = create(sourcePassengerType);
+            return stagedSourcePassenger == null ? 0 : 1;
+        }
+        if (stagedCount >= spawnTotal) return 0;
+        @Nullable Mob unit = createUnit();
+        staged[stagedCount++] = unit;
+        return unit == null ? 0 : 1 + unit.getPassengers().size();
+    }
+
+    /**
+     * Spawns the lightning, applies effects to the source, and queues the
+     * remaining entities to be spawned.
+     */
+    public void fire() {
+        if (fired) return;
+        fired = true;
+        boolean bundle = config.triggerEffects == Config.TriggerEffects.PACKET;
+        if (bundle) TriggerPackets.beginBundle();
+        try {
+            fireBurst();
+        } finally {
+            if (bundle) TriggerPackets.endBundle();
+        }
+    }
+
+    private void fireBurst() {
+        x = entity.getX();
+        y = entity.getY();
+        z = entity.getZ();
+
+        if (config.debugMode) {
+            entity.removeEffect(MobEffects.GLOWING);
+            MoreTraps.LOG.info("Trap triggered for {} at {}",
+                    entity.getName().getString(), entity.getOnPos());
+        }
+
+        // Spawn lightning
+        if (config.triggerEffects == Config.TriggerEffects.PACKET) {
+            TriggerPackets.sendLightning(world, x, y, z);
+        } else {
+            // The source is already disarmed, so carry on without the
+            // lightning rather than leave it an unindexed source
+            @Nullable LightningBolt lightning = EntityType.LIGHTNING_BOLT.create(world);
+            if (lightning != null) {
+                lightning.moveTo(x, y, z);
+                lightning.setVisualOnly(true);
+                world.addFreshEntity(lightning);
+            }
+        }
+
+        // Mark source entity as spent
+        TrapMob.of(entity).moretraps$setTrapState(TrapState.SPAWN);
+        LevelTrapData.of(world).trapSpawns().track(entity, world.getGameTime());
+
+        // Apply effects to source entity
+        applyEffects(entity, trap.effectNum);
+
+        if (!isDone()) {
+            LevelTrapData.of(world).spawnQueue().add(this);
+        } else {
+            TrapStats.spawnsPerTrigger.record(0);
+        }
+    }
+
+    /**
+     * @return the number of entities spawned so far.
+     */
+    public int spawned() {
+        return spawned;
+    }
+
+    public boolean isDone() {
+        return sourcePassengerDone && spawnIndex >= spawnTotal;
+    }
+
+    /**
+     * Spawns the next entity and its passenger, if any.
+     * @return the number of entities spawned.
+     */
+    public int spawnNext() {
+        int count = spawnStep();
+        spawned += count;
+        return count;
+    }
+
+    private int spawnStep() {
+        if (!sourcePassengerDone) {
+            sourcePassengerDone = true;
+            @Nullable Mob passenger = sourcePassengerStaged
+                    ? stagedSourcePassenger : create(sourcePassengerType);
+            stagedSourcePassenger = null;
+            if (passenger == null || entity.isRemoved()) return 0;
+            passenger.setPos(entity.getX(), entity.getY(), entity.getZ());
+            finalizeEntity(passenger, 0);
+            return spawnSourcePassenger(passenger);
+        }
+        if (spawnIndex >= spawnTotal) return 0;
+        int index = spawnIndex++;
+        @Nullable Mob trapSpawn = index < stagedCount ? staged[index] : null;
+        staged[index] = null;
+        if (!world.isPositionEntityTicking(BlockPos.containing(x, y, z))) return 0;
+
+        // Spawn trap entity
+        if (trapSpawn == null && index >= stagedCount) trapSpawn = createUnit();
+        if (trapSpawn == null) return 0;
+        trapSpawn.setPos(x, y, z);
+        finalizeEntity(trapSpawn, trap.effectNum);
+        for (Entity passenger : trapSpawn.getPassengers()) {
+            passenger.setPos(x, y, z);
+            if (passenger instanceof Mob mob) finalizeEntity(mob, 0);
+        }
+
+        // Apply spread velocity
+        trapSpawn.push(entity.getRandom().triangle(0.0, 1.1485),
+                0.0, entity.getRandom().triangle(0.0, 1.1485));
+        return world.tryAddFreshEntityWithPassengers(trapSpawn)
+                ? 1 + trapSpawn.getPassengers().size() : 0;
+    }
+
+    /**
+     * Creates a trap entity with its passenger, if any, without finalizing
+     * them.
+     */
+    private @Nullable Mob createUnit() {
+        if (spawnType == null) return null;
+        Mob trapSpawn = create(spawnType);
+        if (trapSpawn != null && passengerType != null) {
+            // Add passenger
+            Mob passenger = create(passengerType);
+            if (passenger != null) {
+                passenger.startRiding(trapSpawn);
+            }
+        }
+        return trapSpawn;
+    }
+
+    private int spawnSourcePassenger(Mob passenger) {
+        if (!trap.invertRiding) {
+            passenger.startRiding(entity);
+            return world.tryAddFreshEntityWithPassengers(passenger) ? 1 : 0;
+        } else {
+            if (world.tryAddFreshEntityWithPassengers(passenger)) {
+                entity.startRiding(passenger);
+                return 1;
+            }
+            return 0;
+        }
+    }
+
+    /**
+     * Creates an entity without adding it to the level or finalizing it, so
+     * that it can be dropped without side effects.
+     */
+    private @Nullable Mob create(EntitySelector types) {
+        Mob newEntity = types.pick(entity.getRandom()).create(world);
+        if (newEntity != null) {
+            newEntity.setPos(entity.getX(), entity.getY(), entity.getZ());
+            TrapMob.of(newEntity).moretraps$setTrapState(TrapState.SPAWN);
+        }
+        return newEntity;
+    }
+
+    /**
+     * Finalizes an entity about to be spawned, which may add other entities
+     * such as jockey mounts to the level.
+     */
+    private void finalizeEntity(Mob mob, int effectNum) {
+        mob.finalizeSpawn(world, localDiff, MobSpawnType.TRIGGERED, null);
+        if (effectNum > 0) applyEffects(mob, effectNum);
+    }
+
+    private void applyEffects(Mob mob, int effectNum) {
+        if (effectNum <= 0) return;
+        effectTarget = mob;
+        if (config.debugMode) {
+            effectsBuilder = new StringBuilder("Applied effects to ");
+            effectsBuilder.append(mob.getName().getString());
+        }
+
+        // Non-capturing, so selection doesn't allocate per trigger
+        effectSampler.select(trap.effectPool, effectNum, entity.getRandom(),
+                this, TrapTrigger::applyEffect);
+        effectTarget = null;
+        if (effectsBuilder != null) {
+            MoreTraps.LOG.info(effectsBuilder.toString());
+            effectsBuilder = null;
+        }
+    }
+
+    private void applyEffect(int index, int amplifier) {
+        @Nullable Mob mob = effectTarget;
+        if (mob == null) return;
+        Holder<MobEffect> effect = trap.effectPool.get(index);
+        mob.addEffect(new MobEffectInstance(effect,
+                config.effectDuration, amplifier, false, config.showParticles));
+        if (effectsBuilder != null) {
+            effectsBuilder.append("; ");
+            effectsBuilder.append(effect.value().getDisplayName().getString());
+            effectsBuilder.append(" ");
+            effectsBuilder.append(amplifier + 1);
+        }
+    }
+}
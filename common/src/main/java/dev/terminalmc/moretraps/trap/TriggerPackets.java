@@ -0,0 +1,135 @@
+/*
+ * Copyright 2024 TerminalMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dev.terminalmc.moretraps.trap;
+
+import dev.terminalmc.moretraps.mixin.accessor.EntityAccessor;
+import it.unimi.dsi.fastutil.objects.ObjectArrayList;
+import it.unimi.dsi.fastutil.objects.Reference2ObjectLinkedOpenHashMap;
+import net.minecraft.network.PacketSendListener;
+import net.minecraft.network.protocol.BundlerInfo;
+import net.minecraft.network.protocol.Packet;
+import net.minecraft.network.protocol.game.ClientGamePacketListener;
+import net.minecraft.network.protocol.game.ClientboundAddEntityPacket;
+import net.minecraft.network.protocol.game.ClientboundBundlePacket;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.server.network.ServerGamePacketListenerImpl;
+import net.minecraft.util.Mth;
+import net.minecraft.world.entity.EntityType;
+import net.minecraft.world.phys.Vec3;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Packet-level trigger effects.
+ *
+ * <p>Lightning is sent to nearby players as a bare add-entity packet, which
+ * the client renders and plays thunder for without a server-side entity.</p>
+ *
+ * <p>While a bundle is open, game packets sent to each player from the
+ * opening thread are held back and flushed as a single
+ * {@link ClientboundBundlePacket} per player when the bundle is closed, so
+ * that a burst of trap spawns reaches the client as one unit. Bundles are
+ * only opened around the steps of a single trigger. Nested bundles (such as
+ * vanilla entity pairing data) are flattened into the outer one, and a send
+ * with a listener, which can't be held back, first flushes the packets held
+ * for that player so the send order is kept.</p>
+ */
+public class TriggerPackets {
+    private static @Nullable Thread bundleThread = null;
+    private static final Map<ServerGamePacketListenerImpl, List<Packet<? super ClientGamePacketListener>>>
+            bundled = new Reference2ObjectLinkedOpenHashMap<>();
+
+    /**
+     * Sends a visual-only lightning strike to the players in range of the
+     * specified position.
+     */
+    public static void sendLightning(ServerLevel level, double x, double y, double z) {
+        int id = EntityAccessor.getEntityCounter().incrementAndGet();
+        ClientboundAddEntityPacket packet = new ClientboundAddEntityPacket(id,
+                Mth.createInsecureUUID(level.getRandom()), x, y, z, 0F, 0F,
+                EntityType.LIGHTNING_BOLT, 0, Vec3.ZERO, 0D);
+        int range = Math.min(EntityType.LIGHTNING_BOLT.clientTrackingRange(),
+                level.getServer().getPlayerList().getViewDistance()) * 16;
+        level.getServer().getPlayerList().broadcast(null, x, y, z, range, level.dimension(), packet);
+    }
+
+    /**
+     * Starts holding back game packets sent from the current thread.
+     */
+    public static void beginBundle() {
+        bundleThread = Thread.currentThread();
+    }
+
+    /**
+     * Sends the held packets, bundled per player.
+     */
+    public static void endBundle() {
+        bundleThread = null;
+        if (bundled.isEmpty()) return;
+        for (Map.Entry<ServerGamePacketListenerImpl, List<Packet<? super ClientGamePacketListener>>> entry
+                : bundled.entrySet()) {
+            send(entry.getKey(), entry.getValue());
+        }
+        bundled.clear();
+    }
+
+    /**
+     * @return {@code true} if the packet was held back for bundling.
+     */
+    @SuppressWarnings("unchecked")
+    public static boolean capture(ServerGamePacketListenerImpl connection, Packet<?> packet,
+                                  @Nullable PacketSendListener listener) {
+        Thread thread = bundleThread;
+        if (thread != Thread.currentThread()) return false;
+        if (listener != null) {
+            @Nullable List<Packet<? super ClientGamePacketListener>> held = bundled.remove(connection);
+            if (held != null) {
+                bundleThread = null;
+                send(connection, held);
+                bundleThread = thread;
+            }
+            return false;
+        }
+        List<Packet<? super ClientGamePacketListener>> packets =
+                bundled.computeIfAbsent(connection, k -> new ObjectArrayList<>());
+        if (packet instanceof ClientboundBundlePacket bundle) {
+            for (Packet<? super ClientGamePacketListener> subPacket : bundle.subPackets()) {
+                packets.add(subPacket);
+            }
+        } else {
+            packets.add((Packet<? super ClientGamePacketListener>)packet);
+        }
+        return true;
+    }
+
+    private static void send(ServerGamePacketListenerImpl connection,
+                             List<Packet<? super ClientGamePacketListener>> packets) {
+        if (packets.size() == 1) {
+            connection.send(packets.getFirst());
+            return;
+        }
+        // Leave room for the bundle delimiters
+        int limit = BundlerInfo.BUNDLE_SIZE_LIMIT - 2;
+        for (int start = 0; start < packets.size(); start += limit) {
+            List<Packet<? super ClientGamePacketListener>> part =
+                    packets.subList(start, Math.min(packets.size(), start + limit));
+            connection.send(new ClientboundBundlePacket(List.copyOf(part)));
+        }
+    }
+}
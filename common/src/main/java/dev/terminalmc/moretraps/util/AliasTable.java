@@ -0,0 +1,88 @@
+/*
+ * Copyright 2024 TerminalMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dev.terminalmc.moretraps.util;
+
+import net.minecraft.util.RandomSource;
+
+/**
+ * Immutable Walker/Vose alias table for constant-time weighted sampling.
+ */
+public final class AliasTable {
+    private final float[] prob;
+    private final int[] alias;
+
+    /**
+     * @param weights non-negative weights, at least one of which is positive.
+     */
+    public AliasTable(float[] weights) {
+        int n = weights.length;
+        if (n == 0) throw new IllegalArgumentException("No weights");
+        double sum = 0;
+        for (float weight : weights) {
+            if (weight < 0 || !Float.isFinite(weight)) {
+                throw new IllegalArgumentException("Invalid weight " + weight);
+            }
+            sum += weight;
+        }
+        if (sum <= 0) throw new IllegalArgumentException("Weights sum to zero");
+
+        this.prob = new float[n];
+        this.alias = new int[n];
+        double[] scaled = new double[n];
+        int[] small = new int[n];
+        int[] large = new int[n];
+        int numSmall = 0;
+        int numLarge = 0;
+        for (int i = 0; i < n; i++) {
+            scaled[i] = weights[i] * n / sum;
+            if (scaled[i] < 1) small[numSmall++] = i;
+            else large[numLarge++] = i;
+        }
+        while (numSmall > 0 && numLarge > 0) {
+            int s = small[--numSmall];
+            int l = large[--numLarge];
+            prob[s] = (float)scaled[s];
+            alias[s] = l;
+            scaled[l] = scaled[l] + scaled[s] - 1;
+            if (scaled[l] < 1) small[numSmall++] = l;
+            else large[numLarge++] = l;
+        }
+        // Remaining entries are 1 up to rounding error
+        while (numLarge > 0) {
+            int l = large[--numLarge];
+            prob[l] = 1;
+            alias[l] = l;
+        }
+        while (numSmall > 0) {
+            int s = small[--numSmall];
+            prob[s] = 1;
+            alias[s] = s;
+        }
+    }
+
+    public int size() {
+        return prob.length;
+    }
+
+    /**
+     * @return a random index, distributed according to the table weights.
+     */
+    public int sample(RandomSource random) {
+        int i = random.nextInt(prob.length);
+        return random.nextFloat() < prob[i] ? i : alias[i];
+    }
+}
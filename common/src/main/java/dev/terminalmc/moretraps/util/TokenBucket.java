@@ -0,0 +1,59 @@
+/*
+ * Copyright 2024 TerminalMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dev.terminalmc.moretraps.util;
+
+/**
+ * Token bucket refilled lazily from a tick clock. The rate and capacity are
+ * passed on each call so that config changes apply immediately.
+ *
+ * <p>Not thread-safe.</p>
+ */
+public class TokenBucket {
+    private double tokens;
+    private long lastTick;
+
+    /**
+     * Creates a full bucket.
+     */
+    public TokenBucket(double capacity, long now) {
+        this.tokens = capacity;
+        this.lastTick = now;
+    }
+
+    /**
+     * Adds the tokens accrued since the last refill, up to the capacity.
+     */
+    public void refill(double perTick, double capacity, long now) {
+        if (now > lastTick) {
+            tokens = Math.min(capacity, tokens + (now - lastTick) * perTick);
+        }
+        lastTick = now;
+        if (tokens > capacity) tokens = capacity;
+    }
+
+    public boolean has(double amount) {
+        return tokens >= amount;
+    }
+
+    public void take(double amount) {
+        tokens -= amount;
+    }
+
+    public boolean isFull(double capacity) {
+        return tokens >= capacity;
+    }
+}
@@ -0,0 +1,47 @@
+/*
+ * Copyright 2024 TerminalMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dev.terminalmc.moretraps.gametest;
+
+import dev.terminalmc.moretraps.MoreTraps;
+import net.minecraft.gametest.framework.GameTest;
+import net.minecraft.gametest.framework.GameTestHelper;
+
+/**
+ * Registers the {@link TrapLoadScenarios} via the {@code fabric-gametest}
+ * entrypoint.
+ */
+public class TrapLoadTestsFabric {
+    private static final String TEMPLATE = MoreTraps.MOD_ID + ":" + TrapLoadScenarios.TEMPLATE;
+
+    @GameTest(template = TEMPLATE, batch = MoreTraps.MOD_ID + "_idle",
+            timeoutTicks = TrapLoadScenarios.TIMEOUT_TICKS)
+    public static void idle(GameTestHelper helper) {
+        TrapLoadScenarios.idle(helper);
+    }
+
+    @GameTest(template = TEMPLATE, batch = MoreTraps.MOD_ID + "_crowd_approach",
+            timeoutTicks = TrapLoadScenarios.TIMEOUT_TICKS)
+    public static void crowdApproach(GameTestHelper helper) {
+        TrapLoadScenarios.crowdApproach(helper);
+    }
+
+    @GameTest(template = TEMPLATE, batch = MoreTraps.MOD_ID + "_mass_trigger",
+            timeoutTicks = TrapLoadScenarios.TIMEOUT_TICKS)
+    public static void massTrigger(GameTestHelper helper) {
+        TrapLoadScenarios.massTrigger(helper);
+    }
+}
@@ -19,6 +19,8 @@ package dev.terminalmc.moretraps;
 import dev.terminalmc.moretraps.command.Commands;
 import net.fabricmc.api.ModInitializer;
 import net.fabricmc.fabric.api.command.v2.CommandRegistrationCallback;
+import net.fabricmc.fabric.api.event.lifecycle.v1.CommonLifecycleEvents;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerLifecycleEvents;
 import net.fabricmc.fabric.api.event.lifecycle.v1.ServerTickEvents;
 import net.minecraft.commands.CommandSourceStack;
 
@@ -32,6 +34,12 @@ public class MoreTrapsFabric implements ModInitializer {
         // Tick events
         ServerTickEvents.END_SERVER_TICK.register(MoreTraps::onEndTick);
 
+        // Lifecycle events
+        ServerLifecycleEvents.SERVER_STOPPING.register(MoreTraps::onServerStopping);
+        CommonLifecycleEvents.TAGS_LOADED.register((registries, client) -> {
+            if (!client) MoreTraps.onTagsLoaded();
+        });
+
         // Main initialization
         MoreTraps.init();
     }
@@ -0,0 +1,54 @@
+/*
+ * Copyright 2024 TerminalMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dev.terminalmc.moretraps.gametest;
+
+import dev.terminalmc.moretraps.MoreTraps;
+import net.minecraft.gametest.framework.GameTest;
+import net.minecraft.gametest.framework.GameTestHelper;
+import net.neoforged.fml.common.Mod;
+import net.neoforged.neoforge.gametest.GameTestHolder;
+import net.neoforged.neoforge.gametest.PrefixGameTestTemplate;
+
+/**
+ * Registers the {@link TrapLoadScenarios} with NeoForge's GameTest holder
+ * scan. Also the entrypoint of the dev-only GameTest mod, which only the
+ * {@code gameTestServer} run loads.
+ */
+@Mod(TrapLoadTestsNeoForge.MOD_ID)
+@GameTestHolder(MoreTraps.MOD_ID)
+@PrefixGameTestTemplate(false)
+public class TrapLoadTestsNeoForge {
+    public static final String MOD_ID = MoreTraps.MOD_ID + "_gametest";
+
+    @GameTest(template = TrapLoadScenarios.TEMPLATE, batch = MoreTraps.MOD_ID + "_idle",
+            timeoutTicks = TrapLoadScenarios.TIMEOUT_TICKS)
+    public static void idle(GameTestHelper helper) {
+        TrapLoadScenarios.idle(helper);
+    }
+
+    @GameTest(template = TrapLoadScenarios.TEMPLATE, batch = MoreTraps.MOD_ID + "_crowd_approach",
+            timeoutTicks = TrapLoadScenarios.TIMEOUT_TICKS)
+    public static void crowdApproach(GameTestHelper helper) {
+        TrapLoadScenarios.crowdApproach(helper);
+    }
+
+    @GameTest(template = TrapLoadScenarios.TEMPLATE, batch = MoreTraps.MOD_ID + "_mass_trigger",
+            timeoutTicks = TrapLoadScenarios.TIMEOUT_TICKS)
+    public static void massTrigger(GameTestHelper helper) {
+        TrapLoadScenarios.massTrigger(helper);
+    }
+}
@@ -30,6 +30,8 @@ import net.neoforged.neoforge.client.event.RegisterClientCommandsEvent;
 import net.neoforged.neoforge.client.event.RegisterKeyMappingsEvent;
 import net.neoforged.neoforge.client.gui.IConfigScreenFactory;
 import net.neoforged.neoforge.event.RegisterCommandsEvent;
+import net.neoforged.neoforge.event.TagsUpdatedEvent;
+import net.neoforged.neoforge.event.server.ServerStoppingEvent;
 import net.neoforged.neoforge.event.tick.ServerTickEvent;
 
 @Mod(value = MoreTraps.MOD_ID)
@@ -57,5 +59,18 @@ public class MoreTrapsNeoForge {
         public static void onServerTick(ServerTickEvent.Post event) {
             MoreTraps.onEndTick(event.getServer());
         }
+
+        // Lifecycle events
+        @SubscribeEvent
+        public static void onServerStopping(ServerStoppingEvent event) {
+            MoreTraps.onServerStopping(event.getServer());
+        }
+
+        @SubscribeEvent
+        public static void onTagsUpdated(TagsUpdatedEvent event) {
+            if (event.getUpdateCause() == TagsUpdatedEvent.UpdateCause.SERVER_DATA_LOAD) {
+                MoreTraps.onTagsLoaded();
+            }
+        }
     }
 }